@@ -0,0 +1,36 @@
+package oop.finalexam;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Small helper for creating thread-per-task executors.
+ * Virtual threads are used when the running JVM supports them (Java 21+); on older runtimes
+ * a cached pool of daemon platform threads is used instead, so the project still runs on Java 17.
+ * Shared by the tasks that run work concurrently (the UMS report export in t2 and the blog client in t3).
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Creates an executor that starts a new (virtual, where available) thread for every task.
+     *
+     * @return A new thread-per-task ExecutorService. Callers that own it should shut it down when done.
+     */
+    public static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Fallback for Java 17: daemon threads so an idle pool never keeps the application alive
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -1,7 +1,24 @@
 package oop.finalexam.t2;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import oop.finalexam.VirtualThreads;
 
 /**
  * Represents the University Management System (UMS).
@@ -51,29 +68,139 @@ public class UMS {
      * @param student The Student object whose data is to be printed.
      */
     public void printStudentData(Student student) {
-        System.out.println("--- Student Information ---");
-        System.out.println(student.toString()); // Prints Student Name and ID
+        StringWriter report = new StringWriter();
+        writeStudentData(student, new PrintWriter(report));
+        System.out.print(report);
+    }
+
+    /**
+     * Writes the same report produced by {@link #printStudentData(Student)} to any PrintWriter.
+     * Console printing and file export share this method so both outputs stay identical.
+     *
+     * @param student The Student object whose data is to be written.
+     * @param out The destination of the report. It is flushed but not closed.
+     */
+    public void writeStudentData(Student student, PrintWriter out) {
+        out.println("--- Student Information ---");
+        out.println(student.toString()); // Writes Student Name and ID
 
         List<LearningCourse> courses = student.getLearningCourses();
         if (courses.isEmpty()) {
-            System.out.println("  No learning courses enrolled for this student.");
+            out.println("  No learning courses enrolled for this student.");
         } else {
-            System.out.println("  Learning Courses for " + student.getName() + ":");
+            out.println("  Learning Courses for " + student.getName() + ":");
             for (LearningCourse course : courses) {
-                System.out.println(course.toString()); // Prints course details
+                out.println(course.toString()); // Writes course details
             }
         }
-        System.out.println("---------------------------\n");
+        out.println("---------------------------\n");
+        out.flush();
+    }
+
+    /**
+     * Exports one transcript file per student into the given directory.
+     * Every student is written on its own (virtual, where available) thread, and a semaphore
+     * caps how many files are open at once so large exports do not exhaust file handles.
+     * Progress is printed as files complete, followed by a throughput summary.
+     *
+     * @param outputDir The directory to write the reports into. It is created if missing.
+     * @param maxOpenFiles The maximum number of report files open at the same time (must be positive).
+     * @return The number of reports that were written successfully.
+     * @throws IOException If the output directory cannot be created.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the export.
+     */
+    public int exportStudentReports(Path outputDir, int maxOpenFiles) throws IOException, InterruptedException {
+        if (maxOpenFiles <= 0) {
+            throw new IllegalArgumentException("maxOpenFiles must be positive, got " + maxOpenFiles);
+        }
+        Files.createDirectories(outputDir);
+
+        List<Student> snapshot = new ArrayList<>(students); // Export a stable copy even if students change meanwhile
+        List<String> fileNames = reportFileNames(snapshot);
+        int total = snapshot.size();
+        Semaphore openFiles = new Semaphore(maxOpenFiles);
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong bytesWritten = new AtomicLong();
+        int progressStep = Math.max(1, total / 10); // Report roughly every 10%
+
+        long start = System.nanoTime();
+        ExecutorService executor = VirtualThreads.newExecutor();
+        try {
+            for (int i = 0; i < total; i++) {
+                Student student = snapshot.get(i);
+                Path file = outputDir.resolve(fileNames.get(i));
+                executor.submit(() -> {
+                    try {
+                        openFiles.acquire(); // Waits here until a file slot is free
+                        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                            writeStudentData(student, new PrintWriter(writer));
+                        } finally {
+                            openFiles.release();
+                        }
+                        bytesWritten.addAndGet(Files.size(file));
+                        int done = written.incrementAndGet();
+                        if (done % progressStep == 0 || done == total) {
+                            System.out.println("Exported " + done + "/" + total + " student reports...");
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // A RuntimeException (e.g., from a student's data) would otherwise vanish inside the Future
+                        failed.incrementAndGet();
+                        System.err.println("Error exporting report for " + student.getStudentId() + ": " + e.getMessage());
+                    } catch (InterruptedException e) {
+                        failed.incrementAndGet();
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+        System.out.printf("Export finished: %d written, %d failed in %.3f s (%.1f reports/s, %.1f KB/s)%n",
+                written.get(), failed.get(), seconds, written.get() / seconds, bytesWritten.get() / 1024.0 / seconds);
+        return written.get();
+    }
+
+    /**
+     * Chooses a file name for each student's report, in the order of the list.
+     * The name is the student ID (or the name, when the ID is missing) with every character that is not safe
+     * in file names replaced by '_'. Since different IDs can map to the same name (e.g., "a/b" and "a_b"),
+     * and some file systems ignore case, a name already taken gets a numeric suffix ("a_b-2.txt"),
+     * so no report overwrites another.
+     *
+     * @param students The students to name reports for.
+     * @return The file names, one per student in the same order.
+     */
+    private static List<String> reportFileNames(List<Student> students) {
+        List<String> names = new ArrayList<>(students.size());
+        Set<String> taken = new HashSet<>(); // Lower-cased, so names differing only in case also count as taken
+        for (Student student : students) {
+            String id = student.getStudentId();
+            String base = (id != null && !id.isEmpty() ? id : String.valueOf(student.getName()))
+                    .replaceAll("[^A-Za-z0-9._-]", "_");
+            String name = base + ".txt";
+            for (int suffix = 2; !taken.add(name.toLowerCase(Locale.ROOT)); suffix++) {
+                name = base + "-" + suffix + ".txt";
+            }
+            names.add(name);
+        }
+        return names;
     }
 
     /**
      * Main method to demonstrate the functionality of the UMS.
      * It creates sample students, including a special "myself" student with
      * courses from Argus, adds them to the UMS, and prints their data.
+     * When started with {@code --export <directory> [maxOpenFiles]} it writes one report file
+     * per student into the directory instead of printing to the console.
      *
-     * @param args Command line arguments (not used).
+     * @param args Optional export mode arguments.
+     * @throws Exception If the export mode fails to create its output.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         UMS universitySystem = new UMS();
 
         // --- Create "Yourself" Student with Argus Courses ---
@@ -124,6 +251,13 @@ public class UMS {
         universitySystem.addStudent(noCourseStudent);
 
 
+        // --- Export mode: one report file per student ---
+        if (args.length >= 2 && args[0].equals("--export")) {
+            int maxOpenFiles = args.length >= 3 ? Integer.parseInt(args[2]) : 64; // Default cap on concurrently open files
+            universitySystem.exportStudentReports(Paths.get(args[1]), maxOpenFiles);
+            return;
+        }
+
         // --- Print Data for All Students in UMS ---
         System.out.println("--- Printing Data for All Students in UMS ---");
         for (Student student : universitySystem.getStudents()) {
@@ -1,61 +1,242 @@
 package oop.finalexam.t3;
 
+import com.google.gson.JsonParseException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Handles communication with the REST API server.
  * Provides methods for sending GET and POST requests to manage blog posts and retrieve statistics.
  * It uses Java's built-in HttpClient for making HTTP requests.
+ * <p>
+ * Besides the blocking methods, which return the response body or an error message as a String,
+ * the client offers asynchronous variants built on {@link HttpClient#sendAsync}. These return
+ * {@link CompletableFuture}s of parsed {@link ApiResponse}s and fail with a typed {@link ApiException},
+ * so many requests can be in flight at once. The client is thread-safe, and its server URL, timeouts and
+ * cache settings can be changed while it is in use (see {@link #applyConfig}).
+ * <p>
+ * Every request advertises gzip/deflate support, and compressed responses are decompressed transparently.
+ * The number of requests in flight is capped by an adaptive {@link ConcurrencyLimiter}, which finds how much
+ * concurrency the server sustains and rejects requests quickly when it is saturated.
  */
 public class ApiClient {
-    private final String baseUrl;
+
+    private static final int LATENCY_WINDOW = 256;      // Recent GET latencies kept per endpoint
+    private static final int MIN_LATENCY_SAMPLES = 20;  // Samples needed before hedging starts
+
+    private static final int MAX_RESOLVED_URIS = 256;   // Bound for the URI cache (paged endpoints vary)
+    private static final String BLOGS_ENDPOINT = "?api=blogs";
+    private static final String STATS_ENDPOINT = "?api=stats";
+
+    /**
+     * The base URL and the URIs resolved against it, replaced together when the server URL changes.
+     */
+    private static final class ServerUris {
+        private final String baseUrl;
+        private final Map<String, URI> resolved = new ConcurrentHashMap<>();
+
+        ServerUris(String baseUrl) {
+            this.baseUrl = baseUrl;
+            for (String endpoint : new String[] {BLOGS_ENDPOINT, STATS_ENDPOINT}) {
+                resolved.put(endpoint, URI.create(baseUrl + endpoint));
+            }
+        }
+
+        /**
+         * Returns the full URI of an endpoint, resolving and remembering it on first use.
+         */
+        URI resolve(String endpoint) {
+            URI uri = resolved.get(endpoint);
+            if (uri == null) {
+                uri = URI.create(baseUrl + endpoint); // Constructs the full URI
+                if (resolved.size() < MAX_RESOLVED_URIS) {
+                    resolved.put(endpoint, uri);
+                }
+            }
+            return uri;
+        }
+    }
+
+    // Settings that can change at runtime (see applyConfig) are volatile; each request reads them once when it is built
+    private volatile ServerUris serverUris;
+    private volatile Duration requestTimeout;
+    private volatile int gzipRequestMinBytes;
     private final HttpClient httpClient;
+    private final Executor executor;
+    private final TransportConfig transport;  // The settings the HttpClient was built with
+    private final ApiResponseCache responseCache;
+    private final BlogPostStreamReader streamReader = new BlogPostStreamReader(BlogJson.PARSER);
+    private final Map<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+    private final ClientMetrics metrics = new ClientMetrics();
+    private final SingleFlight singleFlight = new SingleFlight(metrics); // Shares identical concurrent GETs
+    private volatile RequestPolicy requestPolicy = RequestPolicy.defaults();
+    private volatile ConcurrencyLimiter limiter = ConcurrencyLimiter.withDefaults();
+
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
 
     /**
      * Constructs an ApiClient with the given base URL for the REST server.
-     * The HttpClient is initialized with a connection timeout.
+     * The HttpClient is initialized with the default {@link TransportConfig} (including a 10-second
+     * connection timeout), and asynchronous calls run on virtual threads where the JVM supports them.
      *
      * @param baseUrl The base URL of the REST API server (e.g., "http://max.ge/final/t3/84716293/index.php").
      */
     public ApiClient(String baseUrl) {
-        this.baseUrl = baseUrl;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10)) // 10-second connection timeout for network reliability
-                .build();
+        this(baseUrl, TransportConfig.defaults());
     }
 
     /**
-     * Sends a GET request to the specified endpoint relative to the base URL.
+     * Constructs an ApiClient with the given base URL and transport settings.
      *
-     * @param endpoint The API endpoint (e.g., "?api=blogs", "?api=stats"). Must include leading query parameters if needed.
-     * @return The response body as a String if successful (HTTP status 200), or an error message if the request fails or returns a non-200 status.
+     * @param baseUrl The base URL of the REST API server.
+     * @param transport The HTTP version, timeouts and executor settings (see {@link TransportConfig#fromConfig}).
      */
-    public String get(String endpoint) {
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + endpoint)) // Constructs the full URI
-                    .GET() // Specifies GET method
-                    .build();
+    public ApiClient(String baseUrl, TransportConfig transport) {
+        this(baseUrl, transport.createExecutor(), ApiResponseCache.withDefaults(), transport);
+    }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Constructs an ApiClient with the given base URL and an executor for asynchronous work.
+     * The executor runs the HttpClient's response handling and the parsing of asynchronous results.
+     *
+     * @param baseUrl The base URL of the REST API server.
+     * @param executor The executor used by the HttpClient for asynchronous tasks.
+     */
+    public ApiClient(String baseUrl, Executor executor) {
+        this(baseUrl, executor, ApiResponseCache.withDefaults());
+    }
+
+    /**
+     * Constructs an ApiClient with the given base URL, executor and response cache.
+     *
+     * @param baseUrl The base URL of the REST API server.
+     * @param executor The executor used by the HttpClient for asynchronous tasks.
+     * @param responseCache The cache for GET responses (see {@link ApiResponseCache#withDefaults()}).
+     */
+    public ApiClient(String baseUrl, Executor executor, ApiResponseCache responseCache) {
+        this(baseUrl, executor, responseCache, TransportConfig.defaults());
+    }
+
+    /**
+     * Constructs an ApiClient with the given base URL, executor, response cache and transport settings.
+     * The URIs of the known endpoints are resolved once here instead of on every request.
+     *
+     * @param baseUrl The base URL of the REST API server.
+     * @param executor The executor used by the HttpClient for asynchronous tasks.
+     * @param responseCache The cache for GET responses.
+     * @param transport The HTTP version and timeout settings.
+     */
+    public ApiClient(String baseUrl, Executor executor, ApiResponseCache responseCache, TransportConfig transport) {
+        this.serverUris = new ServerUris(baseUrl);
+        this.responseCache = responseCache;
+        this.requestTimeout = transport.getRequestTimeout();
+        this.gzipRequestMinBytes = transport.getGzipRequestMinBytes();
+        this.executor = executor;
+        this.transport = transport;
+        this.httpClient = transport.buildHttpClient(executor);
+    }
 
-            if (response.statusCode() == 200) {
-                return response.body();
+    /**
+     * Applies a new configuration to the running client, e.g., after config.txt was reloaded
+     * (see {@link ConfigLoader#addListener}). Requests already in flight are not disturbed: they finish
+     * with the settings they were built with, and only later requests see the new ones.
+     * <ul>
+     *     <li>REQUEST_TIMEOUT_MS and GZIP_REQUEST_MIN_BYTES: apply to later requests.</li>
+     *     <li>EXECUTOR_THREADS: resizes the dedicated pool, if the client was started with one.</li>
+     *     <li>CACHE_MAX_ENTRIES, CACHE_TTL_BLOGS_S and CACHE_TTL_STATS_S: see {@link ApiResponseCache#configure}.</li>
+     *     <li>MAX_CONCURRENT_REQUESTS, REQUEST_QUEUE_SIZE and REQUEST_QUEUE_TIMEOUT_MS: see {@link ConcurrencyLimiter#configure}.</li>
+     * </ul>
+     * HTTP_VERSION and CONNECT_TIMEOUT_MS are built into the HttpClient and take effect after a restart.
+     * A changed SERVER_URL also takes effect after a restart only: data derived from the old server, such as a
+     * {@link BlogPostMirror} and its sync watermark, would otherwise be mixed with the new server's posts.
+     * Use {@link #setBaseUrl} to switch servers deliberately.
+     *
+     * @param settings The configuration snapshot to apply.
+     */
+    public void applyConfig(ConfigLoader.Settings settings) {
+        TransportConfig updated = TransportConfig.fromSettings(settings);
+        requestTimeout = updated.getRequestTimeout();
+        gzipRequestMinBytes = updated.getGzipRequestMinBytes();
+        if (executor instanceof ThreadPoolExecutor && updated.getExecutorThreads() > 0) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            int threads = updated.getExecutorThreads();
+            if (threads > pool.getMaximumPoolSize()) { // The core size may never exceed the maximum size
+                pool.setMaximumPoolSize(threads);
+                pool.setCorePoolSize(threads);
             } else {
-                return "Error: API returned status code " + response.statusCode() + "\nResponse: " + response.body();
+                pool.setCorePoolSize(threads); // Surplus threads exit once their current task is done
+                pool.setMaximumPoolSize(threads);
             }
-        } catch (java.net.ConnectException e) {
-            // Specific error for network connection issues
-            return "Error: Could not connect to the server. Please check the URL and your internet connection. Details: " + e.getMessage();
-        } catch (IOException | InterruptedException e) {
-            // General I/O errors or thread interruption during request
-            return "Error sending GET request: " + e.getMessage();
         }
+        if (updated.getHttpVersion() != transport.getHttpVersion() || !updated.getConnectTimeout().equals(transport.getConnectTimeout())) {
+            System.err.println("HTTP_VERSION and CONNECT_TIMEOUT_MS changes take effect after a restart.");
+        }
+        responseCache.configure(settings);
+        limiter.configure(settings);
+        String serverUrl = settings.getProperty("SERVER_URL");
+        if (serverUrl != null && !serverUrl.isBlank() && !serverUrl.equals(getBaseUrl())) {
+            System.err.println("Ignoring the new SERVER_URL until a restart; requests still go to " + getBaseUrl() + ".");
+        }
+    }
+
+    /**
+     * Points later requests at another server. Cached responses of the previous server are dropped,
+     * and later GETs no longer join identical GETs still in flight to the previous server.
+     *
+     * @param baseUrl The base URL of the REST API server.
+     */
+    public void setBaseUrl(String baseUrl) {
+        serverUris = new ServerUris(baseUrl);
+        responseCache.invalidateAll();
+        singleFlight.forgetAll();
+    }
+
+    /**
+     * @return The base URL requests are currently sent to.
+     */
+    public String getBaseUrl() {
+        return serverUris.baseUrl;
+    }
+
+    /**
+     * Sends a GET request to the specified endpoint relative to the base URL.
+     *
+     * @param endpoint The API endpoint (e.g., "?api=blogs", "?api=stats"). Must include leading query parameters if needed.
+     * @return The response body as a String if successful (HTTP status 200), or an error message if the request fails or returns a non-200 status.
+     */
+    public String get(String endpoint) {
+        return awaitBody(getAsync(endpoint), "GET");
     }
 
     /**
@@ -66,27 +247,569 @@ public class ApiClient {
      * @return The response body as a String if successful (HTTP status 2xx), or an error message if the request fails or returns a non-2xx status.
      */
     public String post(String endpoint, String jsonBody) {
-        try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + endpoint)) // Constructs the full URI
-                    .header("Content-Type", "application/json") // Sets content type for JSON body
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody)) // Specifies POST method and attaches JSON body
-                    .build();
+        return awaitBody(postAsync(endpoint, jsonBody), "POST");
+    }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Sends a GET request asynchronously.
+     * Responses of cacheable endpoints are served from the {@link ApiResponseCache} while fresh;
+     * expired entries are revalidated with the server using their ETag/Last-Modified validators.
+     * Slow requests are hedged and failed requests retried as configured by the {@link RequestPolicy}.
+     * Concurrent GETs of the same endpoint are coalesced: while one is in flight, identical calls wait
+     * for its response instead of sending their own request.
+     *
+     * @param endpoint The API endpoint (e.g., "?api=blogs").
+     * @return A future completed with the response body on HTTP status 200, or completed
+     *         exceptionally with an {@link ApiException} on any failure.
+     */
+    public CompletableFuture<String> getAsync(String endpoint) {
+        ApiResponseCache.Entry cached = responseCache.lookup(endpoint);
+        if (cached != null && cached.isFresh()) {
+            return CompletableFuture.completedFuture(cached.getBody()); // Served locally, no network round trip
+        }
+        return singleFlight.execute("GET " + endpoint, () -> fetch(endpoint, cached));
+    }
+
+    /**
+     * Sends the GET request of a cache miss, or revalidates the stale cache entry.
+     */
+    private CompletableFuture<String> fetch(String endpoint, ApiResponseCache.Entry cached) {
+        long generation = responseCache.getGeneration(); // Captured first, so a POST completing meanwhile is noticed
+        HttpRequest request = buildGet(endpoint, cached);
+        CompletableFuture<HttpResponse<String>> sent = sendWithRetries(request, trackerFor(endpoint));
+        return cancelling(sent, sent.handle((response, error) -> {
+                    if (error == null && response.statusCode() == 304 && cached != null) {
+                        return responseCache.revalidated(endpoint, cached, generation).getBody(); // Not modified: reuse cached body
+                    }
+                    String body = checkResponse(request, response, error, false);
+                    responseCache.store(endpoint, response, generation);
+                    return body;
+                }));
+    }
+
+    /**
+     * Sends a POST request with a JSON body asynchronously.
+     * A successful POST changes data on the server, so it clears the response cache, and later GETs
+     * no longer join identical GETs that were already in flight.
+     * POST requests are not idempotent and are therefore never hedged or retried.
+     *
+     * @param endpoint The API endpoint (e.g., "?api=blogs").
+     * @param jsonBody The JSON string to send in the request body.
+     * @return A future completed with the response body on HTTP status 2xx, or completed
+     *         exceptionally with an {@link ApiException} on any failure.
+     */
+    public CompletableFuture<String> postAsync(String endpoint, String jsonBody) {
+        return sendPost(buildPost(endpoint, builder -> CompressedBodies.publisher(builder, jsonBody, gzipRequestMinBytes)), endpoint);
+    }
+
+    /**
+     * Sends a built POST request and clears the cached responses it may have made stale.
+     */
+    private CompletableFuture<String> sendPost(HttpRequest request, String endpoint) {
+        CompletableFuture<HttpResponse<String>> sent = sendLimited(request, endpoint, null);
+        return cancelling(sent, sent.handle((response, error) -> {
+                    String body = checkResponse(request, response, error, true);
+                    responseCache.invalidateAll();
+                    singleFlight.forgetAll(); // GETs already in flight may not reflect this POST
+                    return body;
+                }));
+    }
 
-            if (response.statusCode() >= 200 && response.statusCode() < 300) { // Check for 2xx success codes
-                return response.body();
+    /**
+     * Makes cancelling a future derived from {@code source} (e.g., with thenApply) cancel the source as well.
+     * CompletableFuture only propagates completion downstream, so without this a cancelled call would keep
+     * its exchange running, and its permit held, until the server answers.
+     *
+     * @return The dependent future.
+     */
+    static <T> CompletableFuture<T> cancelling(CompletableFuture<?> source, CompletableFuture<T> dependent) {
+        dependent.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    /**
+     * Replaces the hedging and retry settings for GET requests. Requests already in flight keep their settings.
+     *
+     * @param requestPolicy The new policy (see {@link RequestPolicy#defaults()} and {@link RequestPolicy#singleShot()}).
+     */
+    public void setRequestPolicy(RequestPolicy requestPolicy) {
+        this.requestPolicy = requestPolicy;
+        latencyTrackers.clear(); // Trackers are built for the percentile of the previous policy
+    }
+
+    public RequestPolicy getRequestPolicy() {
+        return requestPolicy;
+    }
+
+    /**
+     * Switches the coalescing of concurrent identical GETs on (the default) or off. With coalescing off,
+     * every call sends its own request, e.g., so that a load test's offered rate reaches the server.
+     *
+     * @param enabled false to send every GET on its own.
+     */
+    public void setRequestCoalescing(boolean enabled) {
+        singleFlight.setEnabled(enabled);
+    }
+
+    /**
+     * Replaces the limiter that caps the number of requests in flight. Requests already holding a permit
+     * return it to the previous limiter.
+     *
+     * @param limiter The new limiter (see {@link ConcurrencyLimiter#withDefaults()} and {@link ConcurrencyLimiter#unlimited()}).
+     */
+    public void setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * @return The limiter that caps the number of requests in flight, with its current limit and counters.
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return limiter;
+    }
+
+    /**
+     * @return The number of hedge requests sent for slow GETs.
+     */
+    public long getHedgedRequestCount() {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * @return The number of GETs answered first by the hedge request rather than the original one.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * @return The number of GET retries after failed attempts.
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * Sends a GET, retrying retryable failures with jittered exponential backoff.
+     * Cancelling the returned future cancels the attempt in progress and stops further retries.
+     */
+    private CompletableFuture<HttpResponse<String>> sendWithRetries(HttpRequest request, LatencyTracker tracker) {
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpResponse<String>>> current = new AtomicReference<>();
+        result.whenComplete((response, error) -> {
+            CompletableFuture<HttpResponse<String>> attempt = current.get();
+            if (error instanceof CancellationException && attempt != null) {
+                attempt.cancel(true);
+            }
+        });
+        sendAttempt(request, tracker, 0, result, current);
+        return result;
+    }
+
+    /**
+     * Sends one (possibly hedged) attempt of a GET and completes the result with its outcome, or schedules
+     * the next attempt if it failed in a retryable way.
+     *
+     * @param attempt The 0-based attempt number.
+     * @param current Holds the attempt in progress, so that cancelling the result can reach it.
+     */
+    private void sendAttempt(HttpRequest request, LatencyTracker tracker, int attempt,
+                             CompletableFuture<HttpResponse<String>> result,
+                             AtomicReference<CompletableFuture<HttpResponse<String>>> current) {
+        RequestPolicy policy = requestPolicy;
+        CompletableFuture<HttpResponse<String>> sent = sendHedged(request, tracker, policy);
+        current.set(sent);
+        if (result.isCancelled()) {
+            sent.cancel(true); // Cancelled while this attempt was being started, before 'current' was set
+            return;
+        }
+        sent.whenComplete((response, error) -> {
+            if (result.isDone()) {
+                return; // Cancelled
+            }
+            if (attempt < policy.getMaxRetries() && isRetryable(response, error)) {
+                retries.incrementAndGet();
+                Executor delayed = CompletableFuture.delayedExecutor(policy.backoffMillis(attempt), TimeUnit.MILLISECONDS);
+                delayed.execute(() -> {
+                    if (!result.isDone()) {
+                        sendAttempt(request, tracker, attempt + 1, result, current);
+                    }
+                });
+            } else if (error != null) {
+                result.completeExceptionally(error);
             } else {
-                return "Error: API returned status code " + response.statusCode() + "\nResponse: " + response.body();
+                result.complete(response);
             }
-        } catch (java.net.ConnectException e) {
-            // Specific error for network connection issues
-            return "Error: Could not connect to the server. Please check the URL and your internet connection. Details: " + e.getMessage();
-        } catch (IOException | InterruptedException e) {
-            // General I/O errors or thread interruption during request
-            return "Error sending POST request: " + e.getMessage();
+        });
+    }
+
+    /**
+     * Sends a GET and, if it has not answered within the tracked latency percentile, a second identical one.
+     * The first successful answer completes the result and the other exchange is cancelled.
+     * The result only fails if every attempt fails.
+     */
+    private CompletableFuture<HttpResponse<String>> sendHedged(HttpRequest request, LatencyTracker tracker, RequestPolicy policy) {
+        long hedgeDelay = policy.isHedgingEnabled() ? tracker.percentileNanos() : -1;
+        CompletableFuture<HttpResponse<String>> primary = sendTimed(request, tracker);
+        if (hedgeDelay < 0) {
+            return primary; // Hedging disabled or not enough latency samples yet
         }
+
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        List<CompletableFuture<HttpResponse<String>>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        attempts.add(primary);
+        completeOnFirstSuccess(primary, result, outstanding, false);
+
+        Executor afterDelay = CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS);
+        CompletableFuture<Void> timer = CompletableFuture.runAsync(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            // A hedge is optional extra load: it is only sent if the concurrency limiter has a permit free right away
+            String endpoint = endpointOf(request);
+            ConcurrencyLimiter.Permit permit = limiter.tryAcquire(rttKey(request.method(), endpoint));
+            if (permit == null) {
+                return;
+            }
+            if (outstanding.incrementAndGet() <= 1) {
+                permit.onIgnored(); // The primary has already failed; the result is decided
+                return;
+            }
+            hedgedRequests.incrementAndGet();
+            CompletableFuture<HttpResponse<String>> hedge = sendWithPermit(permit, request, endpoint, tracker);
+            attempts.add(hedge);
+            completeOnFirstSuccess(hedge, result, outstanding, true);
+        }, afterDelay);
+
+        result.whenComplete((response, error) -> {
+            timer.cancel(false);
+            for (CompletableFuture<HttpResponse<String>> attempt : attempts) {
+                attempt.cancel(true); // No-op for the attempt that already completed
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Completes the shared result with the attempt's response, or with its failure if no other attempt is outstanding.
+     *
+     * @param hedge true for the hedge request, whose answer is counted as a hedge win if it completes the result.
+     */
+    private void completeOnFirstSuccess(CompletableFuture<HttpResponse<String>> attempt,
+                                        CompletableFuture<HttpResponse<String>> result, AtomicInteger outstanding, boolean hedge) {
+        attempt.whenComplete((response, error) -> {
+            if (error == null) {
+                if (result.complete(response) && hedge) {
+                    hedgeWins.incrementAndGet();
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Sends one GET exchange and records its latency for hedging.
+     */
+    private CompletableFuture<HttpResponse<String>> sendTimed(HttpRequest request, LatencyTracker tracker) {
+        return sendLimited(request, endpointOf(request), tracker);
+    }
+
+    /**
+     * Sends one exchange once the concurrency limiter grants a permit, waiting in its queue if necessary.
+     * Fails with an OVERLOADED {@link ApiException} without sending anything if the limiter rejects the request.
+     * Cancelling the returned future leaves the limiter's queue, returns a permit granted at that moment unused,
+     * or aborts the exchange in progress, whichever applies.
+     *
+     * @param tracker The latency tracker of the endpoint, or null if the latency is not used for hedging.
+     */
+    private CompletableFuture<HttpResponse<String>> sendLimited(HttpRequest request, String endpoint, LatencyTracker tracker) {
+        CompletableFuture<ConcurrencyLimiter.Permit> acquired = limiter.acquire(rttKey(request.method(), endpoint));
+        // Completed by hand rather than composed from 'acquired': a composed future that is cancelled skips its
+        // function, which would leak a permit granted at the same time and never reach the real exchange
+        CompletableFuture<HttpResponse<String>> exchange = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<HttpResponse<String>>> sent = new AtomicReference<>();
+        acquired.whenComplete((permit, error) -> {
+            if (error != null) {
+                exchange.completeExceptionally(error); // Rejected by the limiter, or cancelled while queued
+                return;
+            }
+            if (exchange.isDone()) {
+                permit.onIgnored(); // Cancelled just as the permit was granted: nothing is sent
+                return;
+            }
+            CompletableFuture<HttpResponse<String>> attempt = sendWithPermit(permit, request, endpoint, tracker);
+            sent.set(attempt);
+            attempt.whenComplete((response, failure) -> {
+                if (failure != null) {
+                    exchange.completeExceptionally(failure);
+                } else {
+                    exchange.complete(response);
+                }
+            });
+            if (exchange.isCancelled()) {
+                attempt.cancel(true); // Cancelled while the exchange was being started, before 'sent' was set
+            }
+        });
+        exchange.whenComplete((response, error) -> {
+            if (error instanceof CancellationException) {
+                acquired.cancel(false); // A request cancelled while still waiting for a permit leaves the queue
+                CompletableFuture<HttpResponse<String>> attempt = sent.get();
+                if (attempt != null) {
+                    attempt.cancel(true); // Aborts the exchange; its permit is returned by sendWithPermit
+                }
+            }
+        });
+        return exchange;
+    }
+
+    /**
+     * Sends one exchange, records its latency (not counting any wait for the permit) and returns the
+     * permit when the exchange is over. The exchange's own future is returned, so cancelling it (e.g., a
+     * hedge that lost) aborts the exchange; the permit is still returned, because the bookkeeping is attached
+     * to that future rather than to a dependent one, whose actions would be skipped on cancellation.
+     */
+    private CompletableFuture<HttpResponse<String>> sendWithPermit(ConcurrencyLimiter.Permit permit, HttpRequest request,
+                                                                   String endpoint, LatencyTracker tracker) {
+        request.bodyPublisher().ifPresent(publisher -> metrics.recordBytesSent(publisher.contentLength()));
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(request, metrics.countingBytes(CompressedBodies.ofString()));
+        exchange.whenComplete((response, error) -> {
+            long nanos = System.nanoTime() - start;
+            if (response != null) {
+                metrics.recordLatency(request.method(), endpoint, response.statusCode(), nanos);
+            }
+            if (error == null && tracker != null) {
+                tracker.record(nanos);
+            }
+            release(permit, response, error, nanos);
+        });
+        return exchange;
+    }
+
+    /**
+     * Returns a permit to the concurrency limiter, telling it whether the exchange showed signs of overload:
+     * HTTP 429, 502, 503 or 504, a timeout or a refused connection. Only successful answers (status below 400)
+     * count as round trips; other error statuses are ignored, as their timing says little about the load.
+     */
+    private static void release(ConcurrencyLimiter.Permit permit, HttpResponse<?> response, Throwable error, long nanos) {
+        if (error != null) {
+            ApiException.Kind kind = ApiException.from("", error).getKind();
+            if (kind == ApiException.Kind.TIMEOUT || kind == ApiException.Kind.CONNECTION) {
+                permit.onDropped();
+            } else {
+                permit.onIgnored(); // Cancelled hedges and other failures say nothing about the server's load
+            }
+            return;
+        }
+        int status = response.statusCode();
+        if (status == 429 || status == 502 || status == 503 || status == 504) {
+            permit.onDropped();
+        } else if (status >= 400) {
+            permit.onIgnored();
+        } else {
+            permit.onSuccess(nanos);
+        }
+    }
+
+    /**
+     * Connection problems, timeouts, HTTP 429 and 5xx answers are worth retrying; everything else is final.
+     */
+    private static boolean isRetryable(HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            ApiException.Kind kind = ApiException.from("GET", error).getKind();
+            return kind == ApiException.Kind.CONNECTION || kind == ApiException.Kind.TIMEOUT || kind == ApiException.Kind.IO;
+        }
+        int status = response.statusCode();
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * Returns the latency tracker of an endpoint; endpoints sharing their first query parameter share a tracker.
+     */
+    private LatencyTracker trackerFor(String endpoint) {
+        return latencyTrackers.computeIfAbsent(ClientMetrics.endpointKey(endpoint),
+                k -> new LatencyTracker(LATENCY_WINDOW, MIN_LATENCY_SAMPLES, requestPolicy.getHedgePercentile()));
+    }
+
+    /**
+     * @return The latency, traffic and error metrics of this client.
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The hit/miss counters of the response cache.
+     */
+    public ApiResponseCache.Stats getCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * Drops all cached responses so the next GET of every endpoint goes to the server.
+     */
+    public void invalidateCache() {
+        responseCache.invalidateAll();
+    }
+
+    /**
+     * Waits for an asynchronous exchange and converts the outcome into the String contract of the
+     * blocking methods: the response body on success, or an "Error: ..." message on failure.
+     */
+    private static String awaitBody(CompletableFuture<String> future, String method) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Preserve the interrupt for the caller
+            future.cancel(true); // Aborts the request unless other callers share it
+            return "Error: The " + method + " request was cancelled.";
+        } catch (java.util.concurrent.ExecutionException | CancellationException e) {
+            ApiException failure = ApiException.from(method, e);
+            switch (failure.getKind()) {
+                case HTTP_STATUS:
+                    return "Error: API returned status code " + failure.getStatusCode() + "\nResponse: " + failure.getResponseBody();
+                case OVERLOADED:
+                    // Rejected locally: the server is already busy with this client's other requests
+                    return "Error: Too many requests are in progress, so this one was not sent. Please try again shortly. Details: "
+                            + failure.getMessage();
+                case CANCELLED:
+                    return "Error: The " + method + " request was cancelled.";
+                case CONNECTION:
+                    // Specific error for network connection issues
+                    return "Error: Could not connect to the server. Please check the URL and your internet connection. Details: "
+                            + details(failure.getCause());
+                default:
+                    // General I/O errors or thread interruption during request
+                    return "Error sending " + method + " request: " + details(failure.getCause() != null ? failure.getCause() : failure);
+            }
+        }
+    }
+
+    /**
+     * Returns the message of an exception, falling back to its type (HttpClient often omits messages).
+     */
+    private static String details(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    /**
+     * Returns the full URI of an endpoint on the current server.
+     */
+    private URI uriFor(String endpoint) {
+        return serverUris.resolve(endpoint);
+    }
+
+    /**
+     * Builds a GET request for the endpoint. When an expired cache entry exists, its validators
+     * are attached so the server can answer with 304 Not Modified instead of the full payload.
+     */
+    private HttpRequest buildGet(String endpoint, ApiResponseCache.Entry cached) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(uriFor(endpoint))
+                .timeout(requestTimeout)
+                .header("Accept-Encoding", CompressedBodies.ACCEPT_ENCODING) // Lets the server compress the response
+                .GET(); // Specifies GET method
+        if (cached != null && cached.getEtag() != null) {
+            builder.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            builder.header("If-Modified-Since", cached.getLastModified());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds a POST request carrying a JSON body for the endpoint.
+     */
+    private HttpRequest buildPost(String endpoint, Function<HttpRequest.Builder, HttpRequest.BodyPublisher> body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(uriFor(endpoint))
+                .timeout(requestTimeout)
+                .header("Accept-Encoding", CompressedBodies.ACCEPT_ENCODING)
+                .header("Content-Type", "application/json"); // Sets content type for JSON body
+        // Specifies POST method and attaches the JSON body; the function may add a Content-Encoding header when it compresses
+        return builder.POST(body.apply(builder)).build();
+    }
+
+    /**
+     * Turns the outcome of an asynchronous exchange into either the response body or a typed failure.
+     * GET requests accept only status 200, POST requests accept any 2xx status, mirroring the blocking methods.
+     */
+    private String checkResponse(HttpRequest request, HttpResponse<String> response, Throwable error, boolean any2xx) {
+        if (error != null) {
+            throw recorded(ApiException.from(request.method(), error));
+        }
+        int status = response.statusCode();
+        boolean ok = any2xx ? status >= 200 && status < 300 : status == 200;
+        if (!ok) {
+            throw recorded(ApiException.httpStatus(status, response.body()));
+        }
+        return response.body();
+    }
+
+    /**
+     * Counts a failure in the metrics and returns it for throwing.
+     */
+    private ApiException recorded(ApiException failure) {
+        metrics.recordError(failure.getKind());
+        return failure;
+    }
+
+    /**
+     * Recovers the endpoint (the query part, e.g., "?api=blogs") from a request.
+     */
+    private static String endpointOf(HttpRequest request) {
+        String query = request.uri().getRawQuery();
+        return query != null ? "?" + query : request.uri().getPath();
+    }
+
+    /**
+     * Returns the kind of request under which the concurrency limiter compares round trips: the method and the
+     * endpoint without its parameter values (e.g., "GET ?api=blogs&limit&offset"). Unlike the coarser
+     * {@link ClientMetrics#endpointKey}, it keeps a page of posts from being compared with the full listing,
+     * or a POST with a GET.
+     */
+    private static String rttKey(String method, String endpoint) {
+        StringBuilder key = new StringBuilder(method).append(' ');
+        String[] parameters = endpoint.split("&");
+        key.append(parameters[0]); // The resource itself, e.g. "?api=blogs"
+        for (int i = 1; i < parameters.length; i++) {
+            int equals = parameters[i].indexOf('=');
+            key.append('&').append(equals >= 0 ? parameters[i].substring(0, equals) : parameters[i]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Parses a JSON response body into the given ApiResponse type, raising a PARSE failure
+     * for malformed or empty bodies. The parse time is recorded under the given response type name.
+     */
+    private <T> ApiResponse<T> parse(String body, Type type, String responseType) {
+        long start = System.nanoTime();
+        ApiResponse<T> parsed;
+        try {
+            parsed = BlogJson.PARSER.fromJson(body, type);
+        } catch (JsonParseException e) {
+            throw recorded(ApiException.parse(body, e));
+        }
+        if (parsed == null) {
+            throw recorded(ApiException.parse(body, new JsonParseException("empty response body")));
+        }
+        metrics.recordParse(responseType, System.nanoTime() - start);
+        return parsed;
+    }
+
+    /**
+     * Parses the body of an asynchronous exchange once it arrives; cancelling the result cancels the exchange.
+     */
+    private <T> CompletableFuture<ApiResponse<T>> parsed(CompletableFuture<String> body, Type type, String responseType) {
+        return cancelling(body, body.thenApply(json -> parse(json, type, responseType)));
     }
 
     // --- Specific API Call Implementations ---
@@ -98,7 +821,7 @@ public class ApiClient {
      * @return A JSON string representing all posts, or an error message if the request fails.
      */
     public String getAllBlogPosts() {
-        return get("?api=blogs"); // Corrected endpoint based on API documentation
+        return get(BLOGS_ENDPOINT); // Corrected endpoint based on API documentation
     }
 
     /**
@@ -111,10 +834,21 @@ public class ApiClient {
      * @return A JSON string indicating success/failure, or an error message.
      */
     public String createBlogPost(String title, String author, String content) {
-        // Simple JSON string construction. For complex JSON, a library is recommended.
-        String jsonBody = String.format("{\"title\": \"%s\", \"author\": \"%s\", \"content\": \"%s\"}",
-                escapeJson(title), escapeJson(author), escapeJson(content));
-        return post("?api=blogs", jsonBody); // Corrected endpoint based on API documentation
+        return awaitBody(postBlogPost(title, author, content), "POST"); // Corrected endpoint based on API documentation
+    }
+
+    /**
+     * Creates a new blog post whose content is read from a UTF-8 text file.
+     * The content is streamed from the file while the request is sent, so even posts of many megabytes
+     * are never held in memory as a whole.
+     *
+     * @param title The title of the post.
+     * @param author The author of the post.
+     * @param contentFile The file holding the content of the post.
+     * @return A JSON string indicating success/failure, or an error message (also if the file cannot be read).
+     */
+    public String createBlogPostFromFile(String title, String author, Path contentFile) {
+        return awaitBody(postBlogPostFromFile(title, author, contentFile), "POST");
     }
 
     /**
@@ -123,18 +857,215 @@ public class ApiClient {
      * @return A JSON string representing site statistics, or an error message.
      */
     public String getSiteStatistics() {
-        return get("?api=stats"); // Corrected endpoint based on API documentation
+        return get(STATS_ENDPOINT); // Corrected endpoint based on API documentation
     }
 
     /**
-     * Helper method to escape double quotes and backslashes in JSON string values.
-     * This is a very basic implementation and might not cover all edge cases for complex JSON.
-     * For production, use a proper JSON library.
+     * Fetches all blog posts and decodes the response incrementally while it is being received.
+     * Each post is handed to the consumer as soon as it is parsed, so the first post is available
+     * long before a large listing has been downloaded. Streamed responses bypass the response cache.
+     *
+     * @param consumer Receives each BlogPost in server order.
+     * @return The success flag and metadata of the response; its data is the number of posts delivered.
+     * @throws ApiException If the request fails, the server returns a non-200 status, or the body cannot be parsed.
      */
-    private String escapeJson(String text) {
-        if (text == null) {
-            return "";
+    public ApiResponse<Integer> streamAllBlogPosts(Consumer<BlogPost> consumer) {
+        return streamBlogPosts(BLOGS_ENDPOINT, consumer);
+    }
+
+    /**
+     * Fetches the blog posts updated at or after the given timestamp, decoding them as they arrive.
+     * The {@code updated_since} parameter is not part of the documented API; only {@link StubBlogServer}
+     * implements it. A server that ignores it returns every post, so callers must still compare timestamps
+     * themselves and should not expect the request to be any cheaper than {@link #streamAllBlogPosts}.
+     *
+     * @param updatedSince The oldest "updated_at" timestamp of interest (e.g., "2024-01-31 12:00:00"),
+     *                     or null to fetch every post.
+     * @param consumer Receives each BlogPost in server order.
+     * @return The success flag and metadata of the response; its data is the number of posts delivered.
+     * @throws ApiException If the request fails, the server returns a non-200 status, or the body cannot be parsed.
+     */
+    public ApiResponse<Integer> streamBlogPostsUpdatedSince(String updatedSince, Consumer<BlogPost> consumer) {
+        if (updatedSince == null) {
+            return streamBlogPosts(BLOGS_ENDPOINT, consumer);
+        }
+        return streamBlogPosts(BLOGS_ENDPOINT + "&updated_since=" + URLEncoder.encode(updatedSince, StandardCharsets.UTF_8), consumer);
+    }
+
+    /**
+     * Streams a "?api=blogs" listing from the given endpoint to the consumer.
+     * The concurrency permit only covers the exchange up to the response headers, so a slow consumer
+     * holds back no other request.
+     */
+    private ApiResponse<Integer> streamBlogPosts(String endpoint, Consumer<BlogPost> consumer) {
+        HttpResponse<InputStream> response;
+        ConcurrencyLimiter.Permit permit;
+        long start;
+        // Timed to the headers only, so not comparable with buffered GETs of the same endpoint
+        CompletableFuture<ConcurrencyLimiter.Permit> acquired = limiter.acquire(rttKey("GET", endpoint) + " (streamed)");
+        try {
+            permit = acquired.get();
+            start = System.nanoTime();
+        } catch (InterruptedException e) {
+            acquired.cancel(false); // Leaves the limiter's queue
+            acquired.thenAccept(ConcurrencyLimiter.Permit::onIgnored); // Returns a permit granted before the cancel, if any
+            Thread.currentThread().interrupt(); // Preserve the interrupt for the caller
+            throw recorded(ApiException.from("GET", e));
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw recorded(ApiException.from("GET", e)); // Rejected by the concurrency limiter
+        }
+        try {
+            response = httpClient.send(buildGet(endpoint, null), metrics.countingBytes(CompressedBodies.ofInputStream()));
+        } catch (InterruptedException e) {
+            permit.onIgnored();
+            Thread.currentThread().interrupt(); // Preserve the interrupt for the caller
+            throw recorded(ApiException.from("GET", e));
+        } catch (IOException e) {
+            release(permit, null, e, 0);
+            throw recorded(ApiException.from("GET", e));
+        }
+        long headersNanos = System.nanoTime() - start;
+        metrics.recordLatency("GET", endpoint, response.statusCode(), headersNanos); // Time to headers
+        // Returned as soon as the headers arrive: reading the body runs the caller's consumer, which may be slow,
+        // and must neither hold back other requests nor count as server time
+        release(permit, response, null, headersNanos);
+
+        long parseStart = System.nanoTime();
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw recorded(ApiException.httpStatus(response.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+            ApiResponse<Integer> result = streamReader.read(body, consumer);
+            metrics.recordParse("blogs (streamed)", System.nanoTime() - parseStart); // Includes download and consumer time
+            return result;
+        } catch (JsonParseException e) {
+            throw recorded(ApiException.parse(null, e));
+        } catch (IOException e) {
+            throw recorded(ApiException.from("GET", e));
+        }
+    }
+
+    // --- Asynchronous API Call Implementations ---
+
+    /**
+     * Fetches all blog posts from the server asynchronously.
+     * Concurrent calls share one request and one parsed response, which callers must not modify.
+     *
+     * @return A future of the parsed response, failing with an {@link ApiException} on errors.
+     */
+    public CompletableFuture<ApiResponse<List<BlogPost>>> getAllBlogPostsAsync() {
+        return singleFlight.execute("blogs (parsed)",
+                () -> parsed(getAsync(BLOGS_ENDPOINT), BlogJson.BLOG_LIST_TYPE, "blogs"));
+    }
+
+    /**
+     * Fetches one page of blog posts asynchronously.
+     *
+     * @param offset The index of the first post to return.
+     * @param limit The maximum number of posts to return.
+     * @return A future of the parsed page, failing with an {@link ApiException} on errors.
+     */
+    public CompletableFuture<ApiResponse<List<BlogPost>>> getBlogPostsPageAsync(int offset, int limit) {
+        return parsed(getAsync(BLOGS_ENDPOINT + "&limit=" + limit + "&offset=" + offset), BlogJson.BLOG_LIST_TYPE, "blogs");
+    }
+
+    /**
+     * Returns all blog posts as a lazily fetched stream. Pages of {@code pageSize} posts are requested
+     * on demand, with up to {@code prefetchPages} further pages fetched concurrently ahead of consumption.
+     * Close the stream (e.g., with try-with-resources) when stopping early to cancel outstanding prefetches.
+     *
+     * @param pageSize The number of posts per request.
+     * @param prefetchPages How many pages to fetch ahead of the one being consumed.
+     * @return A sequential, ordered stream of posts. Failures surface as {@link ApiException} during iteration.
+     */
+    public Stream<BlogPost> streamBlogPostPages(int pageSize, int prefetchPages) {
+        BlogPostPager pager = new BlogPostPager(this, pageSize, prefetchPages);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pager, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pager::close);
+    }
+
+    /**
+     * Creates a new blog post on the server asynchronously.
+     *
+     * @param title The title of the post.
+     * @param author The author of the post.
+     * @param content The content of the post.
+     * @return A future of the parsed response, failing with an {@link ApiException} on errors.
+     *         The response's success flag still reports whether the server accepted the post.
+     */
+    public CompletableFuture<ApiResponse<Object>> createBlogPostAsync(String title, String author, String content) {
+        return parsed(postBlogPost(title, author, content), BlogJson.GENERIC_TYPE, "create");
+    }
+
+    /**
+     * Creates a new blog post asynchronously, streaming its content from a UTF-8 text file.
+     * Bytes that are not valid UTF-8 are replaced with U+FFFD.
+     *
+     * @param title The title of the post.
+     * @param author The author of the post.
+     * @param contentFile The file holding the content of the post.
+     * @return A future of the parsed response, failing with an {@link ApiException} on errors
+     *         (of kind IO if the file cannot be read).
+     */
+    public CompletableFuture<ApiResponse<Object>> createBlogPostFromFileAsync(String title, String author, Path contentFile) {
+        return parsed(postBlogPostFromFile(title, author, contentFile), BlogJson.GENERIC_TYPE, "create");
+    }
+
+    /**
+     * Fetches general site statistics from the server asynchronously.
+     * Concurrent calls share one request and one parsed response, which callers must not modify.
+     *
+     * @return A future of the parsed response, failing with an {@link ApiException} on errors.
+     */
+    public CompletableFuture<ApiResponse<ApiResponse.StatsData>> getSiteStatisticsAsync() {
+        return singleFlight.execute("stats (parsed)",
+                () -> parsed(getAsync(STATS_ENDPOINT), BlogJson.STATS_TYPE, "stats"));
+    }
+
+    /**
+     * Fetches the site statistics from the server, bypassing the response cache and any identical request
+     * already in flight, e.g., to read the current post quota. The fresh answer replaces the cached one;
+     * other cached responses are left alone.
+     *
+     * @return A future of the parsed response, failing with an {@link ApiException} on errors.
+     */
+    public CompletableFuture<ApiResponse<ApiResponse.StatsData>> getFreshSiteStatisticsAsync() {
+        return parsed(fetch(STATS_ENDPOINT, null), BlogJson.STATS_TYPE, "stats");
+    }
+
+    /**
+     * Sends the request creating a blog post. The body is written by a pooled {@link JsonBodyWriter},
+     * which escapes and encodes each field in one pass.
+     */
+    private CompletableFuture<String> postBlogPost(String title, String author, String content) {
+        JsonBodyWriter writer = JsonBodyWriter.acquire();
+        try {
+            writer.beginObject().field("title", title).field("author", author).field("content", content).endObject();
+            return sendPost(buildPost(BLOGS_ENDPOINT, builder -> CompressedBodies.publisher(builder, writer, gzipRequestMinBytes)), BLOGS_ENDPOINT);
+        } finally {
+            writer.release(); // The publisher holds its own copy (or the compressed form) of the body
+        }
+    }
+
+    /**
+     * Sends the request creating a blog post whose content is streamed from a file.
+     */
+    private CompletableFuture<String> postBlogPostFromFile(String title, String author, Path contentFile) {
+        long fileSize;
+        try {
+            fileSize = Files.size(contentFile); // Also checks that the file exists before anything is sent
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new ApiException(ApiException.Kind.IO, "Could not read the content file: " + e, -1, null, null));
+        }
+        JsonBodyWriter writer = JsonBodyWriter.acquire();
+        try {
+            Supplier<InputStream> body = writer.beginObject().field("title", title).field("author", author)
+                    .endObjectWithFileField("content", contentFile);
+            return sendPost(buildPost(BLOGS_ENDPOINT,
+                    builder -> CompressedBodies.publisher(builder, body, fileSize, gzipRequestMinBytes)), BLOGS_ENDPOINT);
+        } finally {
+            writer.release();
         }
-        return text.replace("\\", "\\\\").replace("\"", "\\\"");
     }
 }
@@ -0,0 +1,143 @@
+package oop.finalexam.t3;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Typed failure raised by the asynchronous methods of {@link ApiClient}.
+ * Unlike the blocking methods, which return error text as a normal String, the asynchronous
+ * methods complete their futures exceptionally with this exception so callers can tell
+ * failure from success without string matching.
+ */
+public class ApiException extends RuntimeException {
+
+    /**
+     * The category of a failed API call.
+     */
+    public enum Kind {
+        /** The server could not be reached (connection refused, unknown host, ...). */
+        CONNECTION,
+        /** The request or connection timed out. */
+        TIMEOUT,
+        /** The server answered with an unexpected HTTP status code. */
+        HTTP_STATUS,
+        /** The response body could not be parsed as the expected JSON structure. */
+        PARSE,
+        /** The server answered but reported {@code "success": false}. */
+        API_ERROR,
+        /** Any other I/O error while sending the request or reading the response. */
+        IO,
+        /** The call was cancelled or the calling thread was interrupted. */
+        CANCELLED,
+        /** The request was not sent because too many requests were already in progress (see {@link ConcurrencyLimiter}). */
+        OVERLOADED
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private final Kind kind;
+    private final int statusCode;     // HTTP status code, or -1 when no response was received
+    private final String responseBody; // Response body for HTTP_STATUS/PARSE failures, otherwise null
+
+    /**
+     * Constructs an ApiException.
+     *
+     * @param kind The category of the failure.
+     * @param message A human-readable description of the failure.
+     * @param statusCode The HTTP status code, or -1 when no response was received.
+     * @param responseBody The response body, if any.
+     * @param cause The underlying exception, if any.
+     */
+    public ApiException(Kind kind, String message, int statusCode, String responseBody, Throwable cause) {
+        super(message, cause);
+        this.kind = kind;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+    }
+
+    // --- Getters ---
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Creates an exception for a response with an unexpected HTTP status code.
+     */
+    static ApiException httpStatus(int statusCode, String responseBody) {
+        return new ApiException(Kind.HTTP_STATUS, "API returned status code " + statusCode, statusCode, responseBody, null);
+    }
+
+    /**
+     * Creates an exception for a response body that could not be parsed.
+     */
+    static ApiException parse(String responseBody, Throwable cause) {
+        return new ApiException(Kind.PARSE, "Could not parse API response: " + cause.getMessage(), 200, responseBody, cause);
+    }
+
+    /**
+     * Creates an exception for a well-formed response whose success flag is false.
+     */
+    static ApiException apiError(String message) {
+        return new ApiException(Kind.API_ERROR, message, 200, null, null);
+    }
+
+    /**
+     * Creates an exception for a request rejected by the client-side concurrency limit.
+     */
+    static ApiException overloaded(String message) {
+        return new ApiException(Kind.OVERLOADED, message, -1, null, null);
+    }
+
+    /**
+     * Converts any failure raised while sending a request into an ApiException,
+     * unwrapping the CompletionException/ExecutionException layers added by CompletableFuture.
+     *
+     * @param method The HTTP method of the failed request (used in the message).
+     * @param error The failure to convert.
+     * @return The matching ApiException (the original one if it already was an ApiException).
+     */
+    static ApiException from(String method, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof ApiException) {
+            return (ApiException) cause;
+        }
+        if (cause instanceof ConnectException) {
+            return new ApiException(Kind.CONNECTION, "Could not connect to the server: " + cause.getMessage(), -1, null, cause);
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return new ApiException(Kind.TIMEOUT, method + " request timed out: " + cause.getMessage(), -1, null, cause);
+        }
+        if (cause instanceof IOException) {
+            return new ApiException(Kind.IO, "Error sending " + method + " request: " + cause.getMessage(), -1, null, cause);
+        }
+        if (cause instanceof InterruptedException || cause instanceof java.util.concurrent.CancellationException) {
+            return new ApiException(Kind.CANCELLED, method + " request was cancelled", -1, null, cause);
+        }
+        return new ApiException(Kind.IO, "Unexpected error during " + method + " request: " + cause, -1, null, cause);
+    }
+
+    /**
+     * Strips the wrapper exceptions added by CompletableFuture and Future.get, and the
+     * UncheckedIOException used to report I/O errors from body handlers.
+     */
+    static Throwable unwrap(Throwable error) {
+        Throwable current = error;
+        while ((current instanceof CompletionException || current instanceof ExecutionException
+                || current instanceof UncheckedIOException) && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
@@ -26,6 +26,19 @@ public class ApiResponse<T> {
         return meta;
     }
 
+    // --- Setters (optional) ---
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public void setData(T data) {
+        this.data = data;
+    }
+
+    public void setMeta(MetaData meta) {
+        this.meta = meta;
+    }
+
     // --- Nested Class for Metadata ---
     /**
      * Represents the metadata section of the API response, providing information
@@ -0,0 +1,347 @@
+package oop.finalexam.t3;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe cache of GET response bodies used by {@link ApiClient}.
+ * Entries are evicted in least-recently-used order once the cache is full, and each endpoint
+ * has its own time-to-live. Expired entries are kept so they can be revalidated with the server
+ * through {@code If-None-Match}/{@code If-Modified-Since}; a 304 answer refreshes them without
+ * downloading the payload again.
+ * <p>
+ * Only endpoints with a configured TTL are cached. A TTL configured for "?api=blogs" also applies to
+ * endpoints that extend it with more parameters, such as "?api=blogs&limit=10".
+ * The TTLs and the size limit can be changed while the cache is in use (see {@link #configure}).
+ * <p>
+ * Every {@link #invalidateAll()} starts a new generation. A request captures {@link #getGeneration()} before
+ * it is sent and passes it to {@link #store}/{@link #revalidated}; a response from an older generation (e.g., a GET
+ * that was in flight while a POST changed the data) is then not cached, since it may predate the change.
+ */
+public class ApiResponseCache {
+
+    /**
+     * A cached response body together with its validators and expiry time.
+     */
+    public static final class Entry {
+        private final String body;
+        private final String etag;         // Value of the 'ETag' response header, or null
+        private final String lastModified; // Value of the 'Last-Modified' response header, or null
+        private final long expiresAtNanos;
+
+        private Entry(String body, String etag, String lastModified, long expiresAtNanos) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        // --- Getters ---
+        public String getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return true while the entry may be served without contacting the server.
+         */
+        public boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the cache counters.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long revalidations;
+        private final long evictions;
+        private final int size;
+
+        private Stats(long hits, long misses, long revalidations, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.revalidations = revalidations;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        // --- Getters ---
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getRevalidations() {
+            return revalidations;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return The share of lookups served locally without any network traffic (0.0 - 1.0).
+         */
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cache: %d hits, %d misses (%d revalidated with 304), %d evictions, %d entries, hit ratio %.1f%%",
+                    hits, misses, revalidations, evictions, size, getHitRatio() * 100);
+        }
+    }
+
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+    private static final Duration DEFAULT_BLOGS_TTL = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_STATS_TTL = Duration.ofSeconds(10);
+
+    private volatile int maxEntries;
+    private volatile Map<String, Duration> ttls;  // Replaced as a whole, never modified
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long generation;  // Incremented by invalidateAll; guarded by 'entries'
+
+    /**
+     * Constructs an ApiResponseCache.
+     *
+     * @param maxEntries The maximum number of cached responses before LRU eviction starts (must be positive).
+     * @param ttls The time-to-live per endpoint (e.g., "?api=stats" -> 10 seconds). Endpoints without a TTL are not cached.
+     */
+    public ApiResponseCache(int maxEntries, Map<String, Duration> ttls) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive, got " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttls = Map.copyOf(ttls);
+        // Access-ordered LinkedHashMap: iteration order is least-recently-used first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > ApiResponseCache.this.maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Creates the cache used by default in {@link ApiClient}: blog listings are kept for 30 seconds
+     * and site statistics for 10 seconds.
+     *
+     * @return A new ApiResponseCache with the default settings.
+     */
+    public static ApiResponseCache withDefaults() {
+        return new ApiResponseCache(DEFAULT_MAX_ENTRIES, Map.of(
+                "?api=blogs", DEFAULT_BLOGS_TTL,
+                "?api=stats", DEFAULT_STATS_TTL));
+    }
+
+    /**
+     * Applies the cache settings of a configuration snapshot; missing keys restore the defaults:
+     * <pre>
+     * CACHE_MAX_ENTRIES=64     # Cached responses before LRU eviction starts
+     * CACHE_TTL_BLOGS_S=30     # Time-to-live of blog listings; 0 disables caching them
+     * CACHE_TTL_STATS_S=10     # Time-to-live of site statistics; 0 disables caching them
+     * </pre>
+     * Cached entries keep the expiry time they were stored with; the new TTLs apply from the next store.
+     *
+     * @param settings The configuration snapshot.
+     */
+    public void configure(ConfigLoader.Settings settings) {
+        int configuredMaxEntries = settings.getInt("CACHE_MAX_ENTRIES", DEFAULT_MAX_ENTRIES);
+        setMaxEntries(configuredMaxEntries > 0 ? configuredMaxEntries : DEFAULT_MAX_ENTRIES);
+        setTtl("?api=blogs", settings.getDuration("CACHE_TTL_BLOGS_S", TimeUnit.SECONDS, DEFAULT_BLOGS_TTL));
+        setTtl("?api=stats", settings.getDuration("CACHE_TTL_STATS_S", TimeUnit.SECONDS, DEFAULT_STATS_TTL));
+    }
+
+    /**
+     * Changes the time-to-live of an endpoint. Entries already cached keep their expiry time.
+     *
+     * @param endpoint The API endpoint (e.g., "?api=stats").
+     * @param ttl The new time-to-live, or null or zero to stop caching the endpoint (its entry is dropped).
+     */
+    public void setTtl(String endpoint, Duration ttl) {
+        synchronized (entries) {
+            Map<String, Duration> updated = new HashMap<>(ttls);
+            if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                updated.remove(endpoint);
+                entries.keySet().removeIf(key -> ttlFor(updated, key) == null);
+            } else {
+                updated.put(endpoint, ttl);
+            }
+            ttls = Map.copyOf(updated); // Lookups read the map without locking
+        }
+    }
+
+    /**
+     * Changes the maximum number of cached responses, evicting the least recently used ones if the cache is now too full.
+     *
+     * @param maxEntries The new maximum (must be positive).
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive, got " + maxEntries);
+        }
+        synchronized (entries) {
+            this.maxEntries = maxEntries;
+            Iterator<String> leastRecentlyUsed = entries.keySet().iterator();
+            while (entries.size() > maxEntries) {
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @param endpoint The API endpoint.
+     * @return true if responses from this endpoint are cached.
+     */
+    public boolean isCacheable(String endpoint) {
+        return ttlFor(ttls, endpoint) != null;
+    }
+
+    /**
+     * Looks up the cached entry for an endpoint and records a hit (fresh entry) or a miss (missing or expired entry).
+     *
+     * @param endpoint The API endpoint.
+     * @return The cached entry, which may be expired and in need of revalidation, or null if there is none.
+     */
+    public Entry lookup(String endpoint) {
+        if (!isCacheable(endpoint)) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(endpoint);
+        }
+        if (entry != null && entry.isFresh()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * @return The current generation, to be captured before sending a request whose response may be stored.
+     */
+    public long getGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Stores a successful (HTTP 200) response for an endpoint, if the endpoint is cacheable and the cache
+     * has not been invalidated since the request was sent.
+     *
+     * @param endpoint The API endpoint.
+     * @param response The response whose body and validators are cached.
+     * @param requestGeneration The value of {@link #getGeneration()} captured before the request was sent.
+     */
+    public void store(String endpoint, HttpResponse<String> response, long requestGeneration) {
+        Duration ttl = ttlFor(ttls, endpoint);
+        if (ttl == null || response.statusCode() != 200) {
+            return;
+        }
+        Entry entry = new Entry(response.body(),
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                System.nanoTime() + ttl.toNanos());
+        synchronized (entries) {
+            if (requestGeneration == generation) { // Otherwise the response may predate the invalidation
+                entries.put(endpoint, entry);
+            }
+        }
+    }
+
+    /**
+     * Marks an expired entry as confirmed by the server (HTTP 304) and starts a new TTL period for it.
+     * The refreshed entry is not cached again if the cache was invalidated since the request was sent.
+     *
+     * @param endpoint The API endpoint.
+     * @param stale The entry that was sent for revalidation.
+     * @param requestGeneration The value of {@link #getGeneration()} captured before the request was sent.
+     * @return The refreshed entry.
+     */
+    public Entry revalidated(String endpoint, Entry stale, long requestGeneration) {
+        revalidations.incrementAndGet();
+        Duration ttl = ttlFor(ttls, endpoint);
+        Entry refreshed = new Entry(stale.body, stale.etag, stale.lastModified,
+                System.nanoTime() + (ttl != null ? ttl.toNanos() : 0));
+        synchronized (entries) {
+            if (requestGeneration == generation) {
+                entries.put(endpoint, refreshed);
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Removes every cached entry, e.g., after a POST changed the data on the server, and starts a new generation
+     * so responses to requests sent before now are not cached either.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return A snapshot of the hit/miss counters.
+     */
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.get(), misses.get(), revalidations.get(), evictions.get(), size);
+    }
+
+    /**
+     * Finds the TTL for an endpoint, falling back to the TTL of its first query parameter
+     * (e.g., "?api=blogs&limit=10" uses the TTL of "?api=blogs").
+     */
+    private static Duration ttlFor(Map<String, Duration> ttls, String endpoint) {
+        Duration ttl = ttls.get(endpoint);
+        int ampersand = endpoint.indexOf('&');
+        if (ttl == null && ampersand > 0) {
+            ttl = ttls.get(endpoint.substring(0, ampersand));
+        }
+        return ttl;
+    }
+}
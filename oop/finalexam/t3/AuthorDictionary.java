@@ -0,0 +1,51 @@
+package oop.finalexam.t3;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded dictionary that maps equal author names to one shared String instance.
+ * Most posts are written by a few authors, so a mirrored corpus would otherwise hold the same name
+ * once per post; with the dictionary each post only refers to the shared copy, and the copies decoded
+ * from JSON become garbage right away. {@link BlogPost#setAuthor(String)} uses {@link #SHARED}.
+ * <p>
+ * Once the dictionary holds {@link #MAX_ENTRIES} names, further new names are not added (they are
+ * returned as they are), so a stream of unique names cannot make it grow without limit.
+ * The dictionary is thread-safe.
+ */
+public class AuthorDictionary {
+    /** Maximum number of distinct names held. */
+    public static final int MAX_ENTRIES = 65_536;
+
+    /** The dictionary shared by all posts. */
+    public static final AuthorDictionary SHARED = new AuthorDictionary();
+
+    private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared instance equal to the given name, adding the name if it is new and there is room.
+     *
+     * @param name The name, or null.
+     * @return The shared instance, the name itself if the dictionary is full, or null for null.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String shared = names.get(name);
+        if (shared != null) {
+            return shared;
+        }
+        if (names.size() >= MAX_ENTRIES) {
+            return name;
+        }
+        shared = names.putIfAbsent(name, name);
+        return shared != null ? shared : name; // Another thread may have added it first
+    }
+
+    /**
+     * @return The number of distinct names held.
+     */
+    public int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,306 @@
+package oop.finalexam.t3;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Shared JSON setup for the blog API.
+ * Holds the cached {@link Type}s of the API responses and two thread-safe Gson instances:
+ * {@link #PARSER}, a compact instance for decoding and encoding API traffic, and {@link #PRINTER},
+ * a pretty-printing one for human-readable console output.
+ * <p>
+ * Both use hand-written streaming {@link TypeAdapter}s for {@link BlogPost}, {@link ApiResponse},
+ * {@link ApiResponse.MetaData} and {@link ApiResponse.StatsData}, which read fields by name through the
+ * public setters instead of Gson's reflective field binding. Unknown fields are skipped, so the adapters
+ * keep working when the server adds fields.
+ */
+public final class BlogJson {
+    /** Type of the "?api=blogs" listing. */
+    public static final Type BLOG_LIST_TYPE = new TypeToken<ApiResponse<List<BlogPost>>>(){}.getType();
+    /** Type of the "?api=stats" response. */
+    public static final Type STATS_TYPE = new TypeToken<ApiResponse<ApiResponse.StatsData>>(){}.getType();
+    /** Type of responses whose data is not modelled, e.g. post creation. */
+    public static final Type GENERIC_TYPE = new TypeToken<ApiResponse<Object>>(){}.getType();
+
+    /** Compact Gson for API traffic. */
+    public static final Gson PARSER = new GsonBuilder()
+            .registerTypeAdapter(BlogPost.class, new BlogPostAdapter().nullSafe())
+            .registerTypeAdapter(ApiResponse.MetaData.class, new MetaDataAdapter().nullSafe())
+            .registerTypeAdapter(ApiResponse.StatsData.class, new StatsDataAdapter().nullSafe())
+            .registerTypeAdapterFactory(new ApiResponseAdapterFactory())
+            .create();
+
+    /** Pretty-printing Gson for console output. */
+    public static final Gson PRINTER = PARSER.newBuilder().setPrettyPrinting().create();
+
+    private BlogJson() {
+    }
+
+    // --- Adapters ---
+
+    /**
+     * Reads and writes {@link BlogPost} through its getters and setters, which store the post compactly.
+     * Numeric ids are accepted and read back as strings.
+     */
+    static final class BlogPostAdapter extends TypeAdapter<BlogPost> {
+        @Override
+        public BlogPost read(JsonReader in) throws IOException {
+            BlogPost post = new BlogPost();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "title":
+                        post.setTitle(readString(in));
+                        break;
+                    case "content":
+                        post.setContent(readString(in));
+                        break;
+                    case "author":
+                        post.setAuthor(readString(in));
+                        break;
+                    case "created_at":
+                        post.setCreated_at(readString(in));
+                        break;
+                    case "updated_at":
+                        post.setUpdated_at(readString(in));
+                        break;
+                    case "id":
+                        post.setId(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return post;
+        }
+
+        @Override
+        public void write(JsonWriter out, BlogPost post) throws IOException {
+            out.beginObject();
+            out.name("title").value(post.getTitle());
+            out.name("content").value(post.getContent());
+            out.name("author").value(post.getAuthor());
+            out.name("created_at").value(post.getCreated_at());
+            out.name("updated_at").value(post.getUpdated_at());
+            out.name("id").value(post.getId());
+            out.endObject();
+        }
+    }
+
+    /**
+     * Reads and writes {@link ApiResponse.MetaData}.
+     */
+    static final class MetaDataAdapter extends TypeAdapter<ApiResponse.MetaData> {
+        @Override
+        public ApiResponse.MetaData read(JsonReader in) throws IOException {
+            ApiResponse.MetaData meta = new ApiResponse.MetaData();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "total":
+                        meta.setTotal(readInt(in));
+                        break;
+                    case "limit":
+                        meta.setLimit(readInt(in));
+                        break;
+                    case "can_add_more":
+                        meta.setCan_add_more(readBoolean(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return meta;
+        }
+
+        @Override
+        public void write(JsonWriter out, ApiResponse.MetaData meta) throws IOException {
+            out.beginObject();
+            out.name("total").value(meta.getTotal());
+            out.name("limit").value(meta.getLimit());
+            out.name("can_add_more").value(meta.isCan_add_more());
+            out.endObject();
+        }
+    }
+
+    /**
+     * Reads and writes {@link ApiResponse.StatsData}.
+     */
+    static final class StatsDataAdapter extends TypeAdapter<ApiResponse.StatsData> {
+        @Override
+        public ApiResponse.StatsData read(JsonReader in) throws IOException {
+            ApiResponse.StatsData stats = new ApiResponse.StatsData();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "total_posts":
+                        stats.setTotal_posts(readInt(in));
+                        break;
+                    case "max_posts":
+                        stats.setMax_posts(readInt(in));
+                        break;
+                    case "remaining_posts":
+                        stats.setRemaining_posts(readInt(in));
+                        break;
+                    case "percentage_used":
+                        stats.setPercentage_used(readInt(in));
+                        break;
+                    case "can_add_more":
+                        stats.setCan_add_more(readBoolean(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return stats;
+        }
+
+        @Override
+        public void write(JsonWriter out, ApiResponse.StatsData stats) throws IOException {
+            out.beginObject();
+            out.name("total_posts").value(stats.getTotal_posts());
+            out.name("max_posts").value(stats.getMax_posts());
+            out.name("remaining_posts").value(stats.getRemaining_posts());
+            out.name("percentage_used").value(stats.getPercentage_used());
+            out.name("can_add_more").value(stats.isCan_add_more());
+            out.endObject();
+        }
+    }
+
+    /**
+     * Creates adapters for every parameterization of {@link ApiResponse}; the "data" field is
+     * delegated to the adapter of the type argument (Object for a raw ApiResponse).
+     */
+    static final class ApiResponseAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+            if (typeToken.getRawType() != ApiResponse.class) {
+                return null;
+            }
+            Type dataType = typeToken.getType() instanceof ParameterizedType
+                    ? ((ParameterizedType) typeToken.getType()).getActualTypeArguments()[0]
+                    : Object.class;
+            TypeAdapter<Object> dataAdapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(dataType));
+            TypeAdapter<ApiResponse.MetaData> metaAdapter = gson.getAdapter(ApiResponse.MetaData.class);
+            return (TypeAdapter<T>) new ApiResponseAdapter(dataAdapter, metaAdapter).nullSafe();
+        }
+    }
+
+    /**
+     * Reads and writes one parameterization of {@link ApiResponse}.
+     */
+    static final class ApiResponseAdapter extends TypeAdapter<ApiResponse<Object>> {
+        private final TypeAdapter<Object> dataAdapter;
+        private final TypeAdapter<ApiResponse.MetaData> metaAdapter;
+
+        ApiResponseAdapter(TypeAdapter<Object> dataAdapter, TypeAdapter<ApiResponse.MetaData> metaAdapter) {
+            this.dataAdapter = dataAdapter;
+            this.metaAdapter = metaAdapter;
+        }
+
+        @Override
+        public ApiResponse<Object> read(JsonReader in) throws IOException {
+            ApiResponse<Object> response = new ApiResponse<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "success":
+                        response.setSuccess(readBoolean(in));
+                        break;
+                    case "data":
+                        response.setData(dataAdapter.read(in));
+                        break;
+                    case "meta":
+                        response.setMeta(metaAdapter.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        @Override
+        public void write(JsonWriter out, ApiResponse<Object> response) throws IOException {
+            out.beginObject();
+            out.name("success").value(response.isSuccess());
+            if (response.getData() != null) {
+                out.name("data");
+                dataAdapter.write(out, response.getData());
+            }
+            if (response.getMeta() != null) {
+                out.name("meta");
+                metaAdapter.write(out, response.getMeta());
+            }
+            out.endObject();
+        }
+    }
+
+    // --- Lenient primitive readers ---
+
+    /**
+     * Reads a string, number or null as a String.
+     */
+    static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(in.nextBoolean());
+        }
+        return in.nextString(); // Also returns numbers in their textual form
+    }
+
+    /**
+     * Reads a number (or numeric string) as an int; null becomes 0.
+     */
+    static int readInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonParseException("Expected an integer at " + in.getPath(), e);
+        }
+    }
+
+    /**
+     * Reads a boolean, also accepting 0/1 numbers and "true"/"false"/"1"/"0" strings; null becomes false.
+     */
+    static boolean readBoolean(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NUMBER:
+                return in.nextDouble() != 0;
+            case STRING:
+                String value = in.nextString();
+                return value.equalsIgnoreCase("true") || value.equals("1");
+            case NULL:
+                in.nextNull();
+                return false;
+            default:
+                throw new JsonParseException("Expected a boolean at " + in.getPath());
+        }
+    }
+}
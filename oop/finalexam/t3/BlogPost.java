@@ -1,16 +1,35 @@
 package oop.finalexam.t3;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Represents a single blog post object, mapping to the JSON structure returned by the API.
- * Field names are chosen to directly match the JSON keys for automatic mapping by Gson.
+ * The getters and setters follow the JSON keys (e.g., {@code getCreated_at()} for 'created_at');
+ * {@link BlogJson} reads and writes posts through them.
+ * <p>
+ * Internally the post is stored compactly, because a mirrored corpus may hold hundreds of thousands of them:
+ * <ul>
+ *     <li>timestamps are kept as epoch seconds (see {@link BlogPostIndex#parseTimestamp(String)}) and formatted
+ *     again when read; a timestamp that would not come back unchanged (e.g., another format) is kept as text,</li>
+ *     <li>decimal ids are kept as a {@code long}, other ids as text,</li>
+ *     <li>authors are shared through {@link AuthorDictionary#SHARED}, and</li>
+ *     <li>the content is kept as UTF-8 bytes and decoded on each {@link #getContent()} call.</li>
+ * </ul>
+ * The getters therefore return equal, but not always identical, Strings on repeated calls.
  */
 public class BlogPost {
+    private static final long NO_ID = Long.MIN_VALUE;   // No numeric id: see idText
+    private static final long NO_TIME = Long.MIN_VALUE; // Same sentinel as BlogPostIndex.parseTimestamp
+
     private String title;
-    private String content;
-    private String author;
-    private String created_at; // Matches JSON key 'created_at'
-    private String updated_at; // Matches JSON key 'updated_at'
-    private String id;
+    private byte[] content;          // UTF-8, or null
+    private String author;           // Shared instance from the AuthorDictionary
+    private long createdSeconds = NO_TIME;
+    private String createdText;      // Only when the timestamp does not round-trip through createdSeconds
+    private long updatedSeconds = NO_TIME;
+    private String updatedText;
+    private long numericId = NO_ID;
+    private String idText;           // Only for ids that are not plain decimal numbers
 
     // Default constructor is necessary for JSON deserialization by Gson
     public BlogPost() {
@@ -21,8 +40,11 @@ public class BlogPost {
         return title;
     }
 
+    /**
+     * @return The content, decoded from UTF-8 on every call.
+     */
     public String getContent() {
-        return content;
+        return content != null ? new String(content, StandardCharsets.UTF_8) : null;
     }
 
     public String getAuthor() {
@@ -30,15 +52,36 @@ public class BlogPost {
     }
 
     public String getCreated_at() {
-        return created_at;
+        return timestampText(createdSeconds, createdText);
     }
 
     public String getUpdated_at() {
-        return updated_at;
+        return timestampText(updatedSeconds, updatedText);
     }
 
     public String getId() {
-        return id;
+        return numericId != NO_ID ? Long.toString(numericId) : idText;
+    }
+
+    /**
+     * @return The creation time in epoch seconds, or {@link Long#MIN_VALUE} if it is missing or malformed.
+     */
+    public long getCreatedAtSeconds() {
+        return createdSeconds;
+    }
+
+    /**
+     * @return The update time in epoch seconds, or {@link Long#MIN_VALUE} if it is missing or malformed.
+     */
+    public long getUpdatedAtSeconds() {
+        return updatedSeconds;
+    }
+
+    /**
+     * @return The size of the content in UTF-8 bytes, without decoding it.
+     */
+    public int getContentLength() {
+        return content != null ? content.length : 0;
     }
 
     // --- Setters (optional, but good practice for full POJO compliance) ---
@@ -46,24 +89,55 @@ public class BlogPost {
         this.title = title;
     }
 
+    /**
+     * Stores the content as UTF-8. Unpaired surrogates, which UTF-8 cannot represent, become '?'.
+     */
     public void setContent(String content) {
-        this.content = content;
+        this.content = content != null ? content.getBytes(StandardCharsets.UTF_8) : null;
     }
 
     public void setAuthor(String author) {
-        this.author = author;
+        this.author = AuthorDictionary.SHARED.intern(author);
     }
 
     public void setCreated_at(String created_at) {
-        this.created_at = created_at;
+        this.createdSeconds = BlogPostIndex.parseTimestamp(created_at);
+        this.createdText = roundTrips(createdSeconds, created_at) ? null : created_at;
     }
 
     public void setUpdated_at(String updated_at) {
-        this.updated_at = updated_at;
+        this.updatedSeconds = BlogPostIndex.parseTimestamp(updated_at);
+        this.updatedText = roundTrips(updatedSeconds, updated_at) ? null : updated_at;
     }
 
     public void setId(String id) {
-        this.id = id;
+        this.numericId = NO_ID;
+        this.idText = id;
+        if (id != null && !id.isEmpty() && id.length() <= 18) { // 18 digits always fit in a long
+            try {
+                long value = Long.parseLong(id);
+                if (Long.toString(value).equals(id)) { // Rejects "+1", "007" and other forms that would not come back unchanged
+                    this.numericId = value;
+                    this.idText = null;
+                }
+            } catch (NumberFormatException e) {
+                // Not a number: kept as text
+            }
+        }
+    }
+
+    /**
+     * Checks whether a timestamp is exactly the canonical form of its parsed value, so only the value needs storing.
+     */
+    private static boolean roundTrips(long seconds, String text) {
+        return text == null || seconds != NO_TIME && text.equals(BlogPostIndex.formatTimestamp(seconds));
+    }
+
+    private static String timestampText(long seconds, String text) {
+        if (text != null) {
+            return text;
+        }
+        return seconds != NO_TIME ? BlogPostIndex.formatTimestamp(seconds) : null;
     }
 
     /**
@@ -74,9 +148,9 @@ public class BlogPost {
     public String toString() {
         return "Title: " + title + "\n" +
                 "Author: " + (author != null && !author.isEmpty() ? author : "Anonymous") + "\n" +
-                "Content:\n" + content + "\n" +
-                "Created: " + created_at + "\n" +
-                "ID: " + id + "\n" +
+                "Content:\n" + getContent() + "\n" +
+                "Created: " + getCreated_at() + "\n" +
+                "ID: " + getId() + "\n" +
                 "------------------------------------";
     }
 }
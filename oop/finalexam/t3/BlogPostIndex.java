@@ -0,0 +1,268 @@
+package oop.finalexam.t3;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable, indexed snapshot of blog posts for fast client-side queries.
+ * It uses the epoch seconds that each {@link BlogPost} holds for its "created_at" and "updated_at"
+ * timestamps, and creates three indexes:
+ * <ul>
+ *     <li>the post positions sorted by creation time and by update time, so time ranges and
+ *     "newest N" are answered with a binary search instead of a scan, and</li>
+ *     <li>a hash index from author (case-insensitive) to that author's posts.</li>
+ * </ul>
+ * Building costs O(n log n); each query costs O(log n) plus the size of its result.
+ * Posts whose timestamp is missing or malformed are kept, but never match a time range.
+ * The index is thread-safe because it never changes; build a new one when the posts change
+ * (see {@link BlogPostMirror#getIndex()}).
+ */
+public class BlogPostIndex {
+    /**
+     * The timestamp a time query applies to.
+     */
+    public enum TimeField {
+        CREATED,
+        UPDATED
+    }
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long NO_TIME = Long.MIN_VALUE; // Missing or unparseable timestamp; sorts first
+
+    private final List<BlogPost> posts;
+    private final long[] createdSeconds;  // Per post position, in epoch seconds
+    private final long[] updatedSeconds;
+    private final int[] byCreated;        // Post positions in ascending creation time (server order for ties)
+    private final int[] byUpdated;
+    private final Map<String, int[]> byAuthor = new HashMap<>(); // Lower-case author -> positions in server order
+
+    /**
+     * Builds the index.
+     *
+     * @param posts The posts in server order; the list is copied.
+     */
+    public BlogPostIndex(List<BlogPost> posts) {
+        this.posts = new ArrayList<>(posts);
+        int count = this.posts.size();
+        createdSeconds = new long[count];
+        updatedSeconds = new long[count];
+        Map<String, List<Integer>> authors = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            BlogPost post = this.posts.get(i);
+            createdSeconds[i] = post.getCreatedAtSeconds(); // Parsed once when the post was decoded
+            long updated = post.getUpdatedAtSeconds();
+            updatedSeconds[i] = updated != NO_TIME ? updated : createdSeconds[i]; // Never-updated posts count as updated when created
+            authors.computeIfAbsent(authorKey(post.getAuthor()), k -> new ArrayList<>()).add(i);
+        }
+        byCreated = sortedPositions(createdSeconds);
+        byUpdated = sortedPositions(updatedSeconds);
+        for (Map.Entry<String, List<Integer>> entry : authors.entrySet()) {
+            byAuthor.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Parses an API timestamp ("yyyy-MM-dd HH:mm:ss") into epoch seconds.
+     * The API does not state a time zone, so timestamps are compared as if they were UTC; since every
+     * timestamp is treated the same way, their order is preserved.
+     *
+     * @param timestamp The timestamp; a date alone ("yyyy-MM-dd") means its start.
+     * @return The epoch seconds, or {@link Long#MIN_VALUE} if the timestamp is null or malformed.
+     */
+    public static long parseTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return NO_TIME;
+        }
+        String text = timestamp.trim();
+        // Fast path for the fixed API format: reads the digits directly instead of running a DateTimeFormatter
+        if ((text.length() == 10 || text.length() == 19) && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && (text.length() == 10 || text.charAt(10) == ' ' && text.charAt(13) == ':' && text.charAt(16) == ':')) {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = text.length() == 10 ? 0 : digits(text, 11, 2);
+            int minute = text.length() == 10 ? 0 : digits(text, 14, 2);
+            int second = text.length() == 10 ? 0 : digits(text, 17, 2);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= LocalDate.of(year, month, 1).lengthOfMonth()
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59) {
+                return LocalDate.of(year, month, day).toEpochDay() * 86_400 + hour * 3_600L + minute * 60L + second;
+            }
+            return NO_TIME;
+        }
+        try {
+            return LocalDateTime.parse(text, TIMESTAMP).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return NO_TIME;
+        }
+    }
+
+    /**
+     * Formats epoch seconds as an API timestamp ("yyyy-MM-dd HH:mm:ss"), the inverse of {@link #parseTimestamp(String)}.
+     *
+     * @param seconds The epoch seconds (not {@link Long#MIN_VALUE}).
+     * @return The timestamp.
+     */
+    public static String formatTimestamp(long seconds) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+        if (time.getYear() < 0 || time.getYear() > 9999) {
+            return TIMESTAMP.format(time);
+        }
+        // Writes the fixed-width fields directly; this runs whenever a post's timestamp is read
+        byte[] text = {'0', '0', '0', '0', '-', '0', '0', '-', '0', '0', ' ', '0', '0', ':', '0', '0', ':', '0', '0'};
+        putDigits(text, 0, 4, time.getYear());
+        putDigits(text, 5, 2, time.getMonthValue());
+        putDigits(text, 8, 2, time.getDayOfMonth());
+        putDigits(text, 11, 2, time.getHour());
+        putDigits(text, 14, 2, time.getMinute());
+        putDigits(text, 17, 2, time.getSecond());
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    private static void putDigits(byte[] text, int start, int length, int value) {
+        for (int i = start + length - 1; i >= start; i--) {
+            text[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Reads 'length' decimal digits starting at 'start', or returns -1 if any character is not a digit.
+     */
+    private static int digits(String text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // --- Queries ---
+
+    /**
+     * Finds the posts whose timestamp lies within the given range.
+     *
+     * @param field The timestamp to compare.
+     * @param fromSeconds The start of the range in epoch seconds, inclusive (Long.MIN_VALUE + 1 for no lower bound).
+     * @param toSeconds The end of the range in epoch seconds, inclusive (Long.MAX_VALUE for no upper bound).
+     * @return The matching posts, oldest first.
+     */
+    public List<BlogPost> findBetween(TimeField field, long fromSeconds, long toSeconds) {
+        int[] order = field == TimeField.CREATED ? byCreated : byUpdated;
+        long[] times = field == TimeField.CREATED ? createdSeconds : updatedSeconds;
+        long from = Math.max(fromSeconds, NO_TIME + 1); // Posts without a timestamp never match
+        int start = lowerBound(order, times, from);
+        int end = toSeconds == Long.MAX_VALUE ? order.length : lowerBound(order, times, toSeconds + 1);
+        List<BlogPost> result = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            result.add(posts.get(order[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the posts of one author.
+     *
+     * @param author The author's name; case and surrounding whitespace are ignored.
+     * @return The author's posts in server order, or an empty list.
+     */
+    public List<BlogPost> findByAuthor(String author) {
+        int[] positions = byAuthor.get(authorKey(author));
+        if (positions == null) {
+            return Collections.emptyList();
+        }
+        List<BlogPost> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(posts.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the most recently created or updated posts.
+     *
+     * @param field The timestamp to order by.
+     * @param limit The maximum number of posts to return.
+     * @return Up to {@code limit} posts, newest first.
+     */
+    public List<BlogPost> newest(TimeField field, int limit) {
+        int[] order = field == TimeField.CREATED ? byCreated : byUpdated;
+        int count = Math.max(0, Math.min(limit, order.length));
+        List<BlogPost> result = new ArrayList<>(count);
+        for (int i = order.length - 1; i >= order.length - count; i--) {
+            result.add(posts.get(order[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the authors with the most posts.
+     *
+     * @param limit The maximum number of authors to return.
+     * @return Up to {@code limit} entries of author name (as first written) and post count, most posts first.
+     */
+    public List<Map.Entry<String, Integer>> topAuthors(int limit) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>(byAuthor.size());
+        for (int[] positions : byAuthor.values()) {
+            counts.add(Map.entry(String.valueOf(posts.get(positions[0]).getAuthor()), positions.length));
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return counts.subList(0, Math.max(0, Math.min(limit, counts.size())));
+    }
+
+    /**
+     * @return The number of indexed posts.
+     */
+    public int size() {
+        return posts.size();
+    }
+
+    // --- Helpers ---
+
+    private static String authorKey(String author) {
+        return author == null ? "" : author.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the positions 0..n-1 sorted by their time (stable, so ties keep server order).
+     */
+    private static int[] sortedPositions(long[] times) {
+        Integer[] positions = new Integer[times.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, (a, b) -> Long.compare(times[a], times[b])); // Object sort is stable
+        return Arrays.stream(positions).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the first index in 'order' whose time is at least 'time'.
+     */
+    private static int lowerBound(int[] order, long[] times, long time) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[order[middle]] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,416 @@
+package oop.finalexam.t3;
+
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A persistent local copy of the server's blog posts, so that listings can be shown from disk
+ * immediately (also across restarts) while fresh data is fetched in the background.
+ * <p>
+ * Posts are stored in an append-only file with one JSON object per line; a later line for the same
+ * {@code id} supersedes earlier ones. On startup the file is replayed into an in-memory index keyed
+ * by id (in server order), which is all a listing needs. When superseded lines outnumber the live
+ * posts, the file is compacted by rewriting it to a temporary file and atomically replacing it.
+ * <p>
+ * Syncing asks the server only for posts updated at or after the watermark, the newest {@code updated_at}
+ * in the mirror ({@link ApiClient#streamBlogPostsUpdatedSince}). The {@code updated_since} parameter is
+ * not part of the documented API (only {@link StubBlogServer} implements it), so a server may well ignore
+ * it and send the full listing. Either way the mirror filters client-side: posts whose {@code updated_at}
+ * matches the mirrored copy are skipped rather than appended again, so only changes reach the file.
+ * What a sync downloads, however, depends on the server: a single sync detects whether the filter was
+ * applied ({@link #isServerFilteringUpdates()}), and if not, each sync transfers every post.
+ * Because timestamps have one-second resolution the boundary is inclusive. Timestamps use the API's
+ * "yyyy-MM-dd HH:mm:ss" format, which orders correctly as plain strings. The API has no delete endpoint,
+ * so deletions are not mirrored.
+ * <p>
+ * The mirror is thread-safe. Background refreshes run on a single daemon thread.
+ */
+public class BlogPostMirror implements AutoCloseable {
+    private static final int MIN_COMPACTION_RECORDS = 64; // Small files are not worth rewriting
+
+    private final Path file;
+    private final ApiClient apiClient;
+    private final Map<String, BlogPost> postsById = new LinkedHashMap<>(); // Guarded by 'this'
+    private int recordCount;   // Lines in the file, including superseded ones. Guarded by 'this'
+    private String watermark;  // Newest updated_at in the mirror, or null when empty. Guarded by 'this'
+    private BlogPostIndex index;  // Query index over the current posts, built on demand. Guarded by 'this'
+    private BlogPostSearchIndex searchIndex; // Built on the first search, then updated incrementally. Guarded by 'this'
+    private final long loadMillis;
+
+    // Serializes syncs so two never fetch the same changes. A ReentrantLock rather than a monitor, because
+    // sessions waiting here may be virtual threads, which would otherwise pin their carrier threads
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "blog-mirror-refresh");
+        thread.setDaemon(true); // Must not keep the application alive
+        return thread;
+    });
+    private CompletableFuture<Integer> pendingRefresh; // Guarded by 'this'
+    private ScheduledFuture<?> periodicRefresh;        // Guarded by 'this'
+    private volatile long lastSyncMillis;              // Wall-clock time of the last successful sync, 0 if none
+    private volatile long syncGeneration;              // Incremented by every successful sync
+    private volatile String lastSyncError;             // Message of the last failed sync, null after a success
+    private volatile Boolean serverFiltersUpdates;     // Whether the server applied updated_since; null until known
+
+    /**
+     * Opens the mirror stored in the given file, creating it on the first sync if it does not exist.
+     * The file is read completely before the constructor returns.
+     *
+     * @param file The mirror file (e.g., "blog_mirror.jsonl").
+     * @param apiClient The client used to fetch changes from the server.
+     * @throws IOException If the file exists but cannot be read.
+     */
+    public BlogPostMirror(Path file, ApiClient apiClient) throws IOException {
+        this.file = file;
+        this.apiClient = apiClient;
+        long start = System.nanoTime();
+        synchronized (this) {
+            load();
+        }
+        this.loadMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Replays the file into the index. A line that cannot be parsed (e.g., the last line of a write
+     * interrupted by a crash) is skipped, and the file is rewritten without it.
+     */
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        int corrupt = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                BlogPost post;
+                try {
+                    post = BlogJson.PARSER.fromJson(line, BlogPost.class);
+                } catch (JsonParseException e) {
+                    corrupt++;
+                    continue;
+                }
+                if (post == null || post.getId() == null) {
+                    corrupt++;
+                    continue;
+                }
+                recordCount++;
+                index(post);
+            }
+        }
+        if (corrupt > 0) {
+            System.err.println("Skipped " + corrupt + " unreadable record(s) in " + file);
+        }
+        if (corrupt > 0 || needsCompaction()) {
+            compact();
+        }
+    }
+
+    // --- Reading ---
+
+    /**
+     * Returns a snapshot of the mirrored posts in server order.
+     *
+     * @return A new list; later syncs do not change it.
+     */
+    public synchronized List<BlogPost> getPosts() {
+        return new ArrayList<>(postsById.values());
+    }
+
+    /**
+     * Returns a query index over the mirrored posts. It is built on first use after a change and then
+     * reused, so repeated queries neither fetch nor rescan the posts.
+     *
+     * @return The index of the current posts; later syncs do not change it.
+     */
+    public synchronized BlogPostIndex getIndex() {
+        if (index == null) {
+            index = new BlogPostIndex(new ArrayList<>(postsById.values()));
+        }
+        return index;
+    }
+
+    /**
+     * Returns the full-text search index over the mirrored posts. It is built on the first call (so it
+     * does not slow down startup) and from then on updated incrementally as syncs add or change posts.
+     *
+     * @return The live search index; it reflects later syncs.
+     */
+    public synchronized BlogPostSearchIndex getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new BlogPostSearchIndex();
+            searchIndex.addAll(postsById.values());
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Returns the number of mirrored posts.
+     *
+     * @return The number of distinct post ids in the mirror.
+     */
+    public synchronized int size() {
+        return postsById.size();
+    }
+
+    /**
+     * Checks whether the mirror holds no posts yet (e.g., on the very first run).
+     *
+     * @return true if no post has been mirrored.
+     */
+    public synchronized boolean isEmpty() {
+        return postsById.isEmpty();
+    }
+
+    // --- Syncing ---
+
+    /**
+     * Fetches the posts changed since the watermark and stores them, blocking until done. A server that
+     * ignores the watermark sends every post; only the changed ones are stored.
+     * Every post the server sends is also handed to the consumer as it arrives, which lets a first
+     * sync display posts while they are still being downloaded.
+     * <p>
+     * If another sync completes while this one waits for it, its result is used instead of fetching
+     * again (many sessions opening the first listing at once cause one download, not one each), and
+     * the consumer receives the mirrored posts.
+     *
+     * @param consumer Receives each post received from the server, changed or not.
+     * @return The number of posts that were added or updated.
+     * @throws ApiException If the request fails or the server reports an error.
+     * @throws UncheckedIOException If the mirror file cannot be written.
+     */
+    public int sync(Consumer<BlogPost> consumer) {
+        long generation = syncGeneration;
+        syncLock.lock();
+        try {
+            if (syncGeneration != generation) {
+                getPosts().forEach(consumer); // Synced by the caller we waited for
+                return 0;
+            }
+            List<BlogPost> changed = new ArrayList<>();
+            String since = getWatermark();
+            boolean[] olderReceived = new boolean[1]; // Set if the server sent a post it should have filtered out
+            ApiResponse<Integer> response = apiClient.streamBlogPostsUpdatedSince(since, post -> {
+                if (post.getId() != null && isChanged(post)) {
+                    changed.add(post);
+                }
+                String updated = post.getUpdated_at() != null ? post.getUpdated_at() : post.getCreated_at();
+                if (since != null && updated != null && updated.compareTo(since) < 0) {
+                    olderReceived[0] = true;
+                }
+                consumer.accept(post);
+            });
+            if (!response.isSuccess()) {
+                throw ApiException.apiError("Server reported an error while listing posts");
+            }
+            apply(changed);
+            if (since != null) {
+                recordServerFiltering(!olderReceived[0]);
+            }
+            lastSyncMillis = System.currentTimeMillis();
+            lastSyncError = null;
+            syncGeneration++; // Only written while holding the lock
+            return changed.size();
+        } catch (IOException e) {
+            lastSyncError = "Could not write " + file + ": " + e.getMessage();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            lastSyncError = e.getMessage();
+            throw e;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a sync in the background unless one is already running, in which case the running one is returned.
+     *
+     * @return A future of the number of posts added or updated. Failures are also available from {@link #getLastSyncError()}.
+     */
+    public synchronized CompletableFuture<Integer> refreshAsync() {
+        if (pendingRefresh != null && !pendingRefresh.isDone()) {
+            return pendingRefresh; // Coalesce: a second refresh would only fetch the same changes
+        }
+        CompletableFuture<Integer> refresh = new CompletableFuture<>();
+        refresher.execute(() -> {
+            try {
+                refresh.complete(sync(post -> { }));
+            } catch (RuntimeException e) {
+                refresh.completeExceptionally(e); // sync has recorded the error message
+            }
+        });
+        pendingRefresh = refresh;
+        return refresh;
+    }
+
+    /**
+     * Refreshes the mirror periodically in the background, replacing any earlier schedule.
+     *
+     * @param interval The time between refreshes; zero or negative stops periodic refreshing.
+     */
+    public synchronized void startBackgroundRefresh(Duration interval) {
+        if (periodicRefresh != null) {
+            periodicRefresh.cancel(false);
+            periodicRefresh = null;
+        }
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        long millis = interval.toMillis();
+        periodicRefresh = refresher.scheduleWithFixedDelay(this::refreshAsync, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background refreshing. The mirror file is always consistent on disk, so nothing needs flushing.
+     */
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Remembers whether the server applied the updated_since filter, and says so once if it did not:
+     * every later refresh will then download the full listing.
+     */
+    private void recordServerFiltering(boolean filtered) {
+        Boolean previous = serverFiltersUpdates;
+        serverFiltersUpdates = filtered;
+        if (!filtered && !Boolean.FALSE.equals(previous)) {
+            System.err.println("The server ignores updated_since, so every mirror refresh downloads all posts"
+                    + " (only changed posts are stored). Consider a longer MIRROR_REFRESH_SECONDS.");
+        }
+    }
+
+    // --- Storage ---
+
+    private synchronized boolean isChanged(BlogPost post) {
+        BlogPost known = postsById.get(post.getId());
+        return known == null || !String.valueOf(known.getUpdated_at()).equals(String.valueOf(post.getUpdated_at()));
+    }
+
+    /**
+     * Appends the changed posts to the file and then updates the index, compacting if needed.
+     */
+    private synchronized void apply(List<BlogPost> changed) throws IOException {
+        if (changed.isEmpty()) {
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (BlogPost post : changed) {
+                writer.write(BlogJson.PARSER.toJson(post, BlogPost.class)); // Gson escapes newlines, so one post per line
+                writer.newLine();
+            }
+        }
+        for (BlogPost post : changed) {
+            recordCount++;
+            index(post);
+        }
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    private void index(BlogPost post) {
+        index = null; // Rebuilt on the next query
+        if (searchIndex != null) {
+            searchIndex.add(post); // Replaces the post's previous version, if any
+        }
+        postsById.put(post.getId(), post); // Replacing a value keeps the post's original position
+        String updated = post.getUpdated_at() != null ? post.getUpdated_at() : post.getCreated_at();
+        if (updated != null && (watermark == null || updated.compareTo(watermark) > 0)) {
+            watermark = updated;
+        }
+    }
+
+    private boolean needsCompaction() {
+        return recordCount > MIN_COMPACTION_RECORDS && recordCount > 2 * postsById.size();
+    }
+
+    /**
+     * Rewrites the file with only the live posts. The new file is written next to the old one and
+     * moved over it, so a crash leaves either the old or the new file, never a partial one.
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (BlogPost post : postsById.values()) {
+                writer.write(BlogJson.PARSER.toJson(post, BlogPost.class));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordCount = postsById.size();
+    }
+
+    // --- Getters ---
+
+    /**
+     * @return The newest "updated_at" timestamp in the mirror, or null if it is empty.
+     */
+    public synchronized String getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return The time in milliseconds it took to load the mirror file at startup.
+     */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    /**
+     * @return The wall-clock time (epoch milliseconds) of the last successful sync in this session, or 0 if none.
+     */
+    public long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    /**
+     * @return The error message of the last sync if it failed, or null if it succeeded.
+     */
+    public String getLastSyncError() {
+        return lastSyncError;
+    }
+
+    /**
+     * Tells whether the server applied the updated_since filter in the last sync that sent a watermark,
+     * judged by whether it sent any post older than the watermark. A full listing with no older posts
+     * cannot be told apart from a filtered one, so it counts as filtered.
+     *
+     * @return true if the server applied updated_since, false if it sent the full listing, or null if no
+     *         incremental sync has run yet.
+     */
+    public Boolean isServerFilteringUpdates() {
+        return serverFiltersUpdates;
+    }
+
+    /**
+     * @return The path of the mirror file.
+     */
+    public Path getFile() {
+        return file;
+    }
+}
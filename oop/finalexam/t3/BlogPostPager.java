@@ -0,0 +1,180 @@
+package oop.finalexam.t3;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Iterates over all blog posts page by page using the "limit" and "offset" query parameters.
+ * While the posts of the current page are consumed, the next pages are already being fetched
+ * concurrently, so iteration rarely waits for the network. At most {@code prefetchPages + 1}
+ * pages are held at any time, which keeps memory bounded no matter how large the feed is.
+ * <p>
+ * The total number of posts is taken from {@link ApiResponse.MetaData#getTotal()} of the first page, and
+ * paging continues until the offset reaches it. The offset advances by the number of posts actually received:
+ * a server that caps "limit" below the requested page size returns short pages, and the pager then discards its
+ * prefetches, continues right after the last post received and requests pages of the capped size from then on.
+ * Without a known total, a page shorter than the page size ends the iteration. Instances are not thread-safe;
+ * call {@link #close()} to cancel outstanding prefetches when stopping early.
+ */
+public class BlogPostPager implements Iterator<BlogPost>, AutoCloseable {
+    private final ApiClient apiClient;
+    private final int pageSize;
+    private final int prefetchPages;
+
+    /**
+     * A requested page together with the offset and limit it was requested with.
+     */
+    private static final class PendingPage {
+        final int offset;
+        final int limit;
+        final CompletableFuture<ApiResponse<List<BlogPost>>> future;
+
+        PendingPage(int offset, int limit, CompletableFuture<ApiResponse<List<BlogPost>>> future) {
+            this.offset = offset;
+            this.limit = limit;
+            this.future = future;
+        }
+    }
+
+    private final Deque<PendingPage> pending = new ArrayDeque<>(); // In request order
+    private Iterator<BlogPost> current = Collections.emptyIterator();
+    private int requestSize;     // Posts requested per page: the page size, or the server's cap once one is seen
+    private int nextOffset = 0;
+    private int total = -1;      // Unknown until the first page with metadata arrives
+    private boolean exhausted;   // Set once a short or empty page shows there is nothing more to request
+
+    /**
+     * Constructs a BlogPostPager and immediately requests the first page.
+     *
+     * @param apiClient The client used to fetch pages.
+     * @param pageSize The number of posts per request (must be positive).
+     * @param prefetchPages How many pages to fetch ahead of the one being consumed (0 disables prefetching).
+     */
+    public BlogPostPager(ApiClient apiClient, int pageSize, int prefetchPages) {
+        if (pageSize <= 0 || prefetchPages < 0) {
+            throw new IllegalArgumentException("pageSize must be positive and prefetchPages non-negative");
+        }
+        this.apiClient = apiClient;
+        this.pageSize = pageSize;
+        this.prefetchPages = prefetchPages;
+        this.requestSize = pageSize;
+        requestNextPage();
+    }
+
+    /**
+     * @return true if another post is available; may wait for the next page to arrive.
+     * @throws ApiException If fetching a page fails.
+     */
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (!advance()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The next post in server order.
+     * @throws ApiException If fetching a page fails.
+     */
+    @Override
+    public BlogPost next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more blog posts");
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancels all prefetched pages that have not been consumed yet.
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        cancelPending();
+        current = Collections.emptyIterator();
+    }
+
+    private void cancelPending() {
+        for (PendingPage page : pending) {
+            page.future.cancel(true);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Waits for the oldest outstanding page, makes it the current page and tops up the prefetch queue.
+     *
+     * @return false when there are no more pages.
+     */
+    private boolean advance() {
+        if (pending.isEmpty()) {
+            if (!hasMoreToRequest()) {
+                return false;
+            }
+            requestNextPage();
+        }
+
+        PendingPage requested = pending.poll();
+        ApiResponse<List<BlogPost>> page;
+        try {
+            page = requested.future.join();
+        } catch (CompletionException e) {
+            close();
+            throw ApiException.from("GET", e);
+        }
+        if (!page.isSuccess() || page.getData() == null) {
+            close();
+            throw ApiException.apiError("Server reported a failure while fetching blog posts");
+        }
+
+        List<BlogPost> posts = page.getData();
+        if (page.getMeta() != null) {
+            total = page.getMeta().getTotal();
+        }
+        int received = posts.size();
+        if (received > requested.limit) {
+            // The server ignored the paging parameters and sent everything: use it as the whole feed
+            close();
+        } else if (received < requested.limit) {
+            int end = requested.offset + received;
+            if (received == 0 || total < 0 || end >= total) {
+                exhausted = true; // A short page is the last one
+            } else {
+                // The server capped the page size: the prefetched offsets would skip posts, so start over after this page
+                cancelPending();
+                requestSize = received;
+                nextOffset = end;
+            }
+        }
+        current = posts.iterator();
+        fillPrefetchQueue();
+        return true;
+    }
+
+    /**
+     * Requests pages ahead of the current one until the prefetch depth is reached or the feed ends.
+     */
+    private void fillPrefetchQueue() {
+        while (pending.size() < prefetchPages && hasMoreToRequest()) {
+            requestNextPage();
+        }
+    }
+
+    private boolean hasMoreToRequest() {
+        return !exhausted && (total < 0 || nextOffset < total);
+    }
+
+    private void requestNextPage() {
+        pending.add(new PendingPage(nextOffset, requestSize, apiClient.getBlogPostsPageAsync(nextOffset, requestSize)));
+        nextOffset += requestSize;
+    }
+}
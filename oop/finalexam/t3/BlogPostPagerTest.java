@@ -0,0 +1,126 @@
+package oop.finalexam.t3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks {@link BlogPostPager} against a {@link StubBlogServer}:
+ * <ul>
+ *     <li>every post is returned exactly once and in server order, with one request per page and none past the
+ *     total reported by the first page,</li>
+ *     <li>prefetching keeps {@code prefetchPages} requests in flight while a page is consumed, and makes iterating
+ *     over a slow server faster than fetching one page at a time, and</li>
+ *     <li>a server that ignores the paging parameters and sends the whole listing at once is read correctly,
+ *     with no further requests, and</li>
+ *     <li>a server that caps the page size below the requested one still yields every post once and in order.</li>
+ * </ul>
+ * The client has no response cache, so every page is a real request. Prints one line per check and exits
+ * with status 1 if any check fails.
+ * <p>
+ * Usage: {@code BlogPostPagerTest [posts] [pageSize] [prefetchPages] [serverLatencyMillis]}
+ * (defaults: 53 posts in pages of 10, 2 pages prefetched, 50 ms per request).
+ */
+public class BlogPostPagerTest {
+    private static int failures;
+
+    /**
+     * Runs all checks.
+     *
+     * @param args Optional number of posts, page size, prefetch depth and server latency.
+     * @throws Exception If the stub server cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        int posts = args.length >= 1 ? Integer.parseInt(args[0]) : 53;
+        int pageSize = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+        int prefetch = args.length >= 3 ? Integer.parseInt(args[2]) : 2;
+        long latency = args.length >= 4 ? Long.parseLong(args[3]) : 50;
+        int pages = (posts + pageSize - 1) / pageSize;
+
+        StubBlogServer stub = new StubBlogServer(posts).start(0);
+        stub.seed(posts, 50);
+        TransportConfig transport = TransportConfig.defaults();
+        ApiClient client = new ApiClient(stub.getBaseUrl(), transport.createExecutor(), new ApiResponseCache(1, Map.of()), transport);
+        client.setRequestPolicy(RequestPolicy.singleShot()); // Hedges would add requests to the counts checked below
+        try {
+            // --- Order ---
+            long before = stub.getRequestCount();
+            List<String> ids = readAll(client, pageSize, prefetch);
+            check("all posts in order", ids.equals(expectedIds(posts)), ids.size() + " posts read");
+            check("one request per page", stub.getRequestCount() - before == pages,
+                    (stub.getRequestCount() - before) + " requests for " + pages + " pages");
+
+            // --- Prefetch ---
+            stub.setLatency(latency, 0);
+            before = stub.getRequestCount();
+            try (BlogPostPager pager = new BlogPostPager(client, pageSize, prefetch)) {
+                pager.next(); // Waits for the first page, then the next pages are requested
+                TimeUnit.MILLISECONDS.sleep(latency / 2); // They are still in flight at the server
+                long expected = 1 + Math.min(prefetch, pages - 1);
+                check("prefetch requests in flight", stub.getRequestCount() - before == expected,
+                        (stub.getRequestCount() - before) + " requests after the first page, expected " + expected);
+            }
+            long serialNanos = timeReadAll(client, pageSize, 0);
+            long prefetchedNanos = timeReadAll(client, pageSize, prefetch);
+            check("prefetching is faster", pages < 2 || prefetch == 0 || prefetchedNanos < serialNanos,
+                    String.format("%.0f ms with prefetch %d vs. %.0f ms without", prefetchedNanos / 1e6, prefetch, serialNanos / 1e6));
+            stub.setLatency(0, 0);
+
+            // --- A server without paging ---
+            stub.setPagingIgnored(true);
+            before = stub.getRequestCount();
+            ids = readAll(client, pageSize, prefetch);
+            check("server ignoring paging: all posts once, in order", ids.equals(expectedIds(posts)), ids.size() + " posts read");
+            check("server ignoring paging: single request", stub.getRequestCount() - before == 1,
+                    (stub.getRequestCount() - before) + " requests");
+            stub.setPagingIgnored(false);
+
+            // --- A server capping the page size ---
+            int cap = Math.max(1, pageSize / 3);
+            stub.setMaxPageSize(cap);
+            ids = readAll(client, pageSize, prefetch);
+            check("server capping pages at " + cap + ": all posts once, in order", ids.equals(expectedIds(posts)),
+                    ids.size() + " posts read");
+            stub.setMaxPageSize(0);
+        } finally {
+            stub.stop();
+        }
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static List<String> readAll(ApiClient client, int pageSize, int prefetch) {
+        List<String> ids = new ArrayList<>();
+        try (BlogPostPager pager = new BlogPostPager(client, pageSize, prefetch)) {
+            while (pager.hasNext()) {
+                ids.add(pager.next().getId());
+            }
+        }
+        return ids;
+    }
+
+    private static long timeReadAll(ApiClient client, int pageSize, int prefetch) {
+        long start = System.nanoTime();
+        readAll(client, pageSize, prefetch);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The stub numbers seeded posts from 1 and lists them in creation order.
+     */
+    private static List<String> expectedIds(int posts) {
+        List<String> ids = new ArrayList<>(posts);
+        for (int id = 1; id <= posts; id++) {
+            ids.add(String.valueOf(id));
+        }
+        return ids;
+    }
+
+    private static void check(String name, boolean passed, String details) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name + " (" + details + ")");
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package oop.finalexam.t3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A full-text search index over the titles and content of blog posts, ranked with BM25.
+ * <p>
+ * Text is split into lower-case words (letters and digits, any script); one-letter words and common
+ * English stop words are skipped. Each word maps to a postings list of (document, term frequency) pairs.
+ * Title words count {@link #TITLE_WEIGHT} times, so a match in the title ranks above one in the content.
+ * A query scores only the documents in the postings of its words, so its cost depends on how common
+ * the words are, not on the total number of posts.
+ * <p>
+ * The index is updated incrementally: {@link #add(BlogPost)} indexes a new post, or replaces an earlier
+ * version of a post with the same id. Replaced versions are marked deleted and dropped from the postings
+ * once they make up half of all documents.
+ * The index is thread-safe; searches run concurrently and block only while posts are being added.
+ */
+public class BlogPostSearchIndex {
+    private static final double K1 = 1.2;      // BM25 term frequency saturation
+    private static final double B = 0.75;      // BM25 document length normalization
+    private static final int TITLE_WEIGHT = 2; // A title word counts as this many content words
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of",
+            "on", "or", "that", "the", "this", "to", "was", "were", "with");
+
+    /**
+     * A ranked search result.
+     */
+    public static class Hit {
+        private final BlogPost post;
+        private final double score;
+
+        Hit(BlogPost post, double score) {
+            this.post = post;
+            this.score = score;
+        }
+
+        // --- Getters ---
+
+        public BlogPost getPost() {
+            return post;
+        }
+
+        /**
+         * @return The BM25 score; higher is more relevant.
+         */
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * The outcome of a search: the best hits and the total number of matching posts.
+     */
+    public static class Results {
+        private final List<Hit> hits;
+        private final int totalMatches;
+
+        Results(List<Hit> hits, int totalMatches) {
+            this.hits = hits;
+            this.totalMatches = totalMatches;
+        }
+
+        // --- Getters ---
+
+        /**
+         * @return The best hits, best first.
+         */
+        public List<Hit> getHits() {
+            return hits;
+        }
+
+        /**
+         * @return The number of posts matching at least one query word (may exceed the number of hits).
+         */
+        public int getTotalMatches() {
+            return totalMatches;
+        }
+    }
+
+    /**
+     * The documents containing one word, in ascending document order, with the word's frequency in each.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] freqs = new int[4];
+        int size;         // Entries in docs/freqs, including deleted documents
+        int liveCount;    // Document frequency over live documents only (used by the IDF)
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            liveCount++;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, Postings> postings = new HashMap<>();
+    private List<BlogPost> documents = new ArrayList<>();   // Document number -> post
+    private int[] lengths = new int[16];                    // Document number -> weighted word count
+    private BitSet deleted = new BitSet();                  // Documents replaced by a newer version
+    private int deletedCount;
+    private final Map<String, Integer> documentsById = new HashMap<>();
+    private long totalLiveLength;                           // Sum of the lengths of live documents
+
+    // --- Updating ---
+
+    /**
+     * Indexes a post, replacing an earlier version with the same id.
+     *
+     * @param post The post to index; posts without an id are indexed but can never be replaced.
+     */
+    public void add(BlogPost post) {
+        Map<String, Integer> terms = termFrequencies(post);
+        lock.writeLock().lock();
+        try {
+            Integer previous = post.getId() != null ? documentsById.get(post.getId()) : null;
+            if (previous != null) {
+                delete(previous);
+            }
+            indexDocument(post, terms);
+            if (deletedCount * 2 > documents.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes several posts.
+     *
+     * @param posts The posts to index.
+     */
+    public void addAll(Collection<BlogPost> posts) {
+        for (BlogPost post : posts) {
+            add(post);
+        }
+    }
+
+    /**
+     * Appends a document and its postings; the caller holds the write lock.
+     */
+    private void indexDocument(BlogPost post, Map<String, Integer> terms) {
+        int doc = documents.size();
+        documents.add(post);
+        if (doc == lengths.length) {
+            lengths = Arrays.copyOf(lengths, doc * 2);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), k -> new Postings()).add(doc, term.getValue());
+            length += term.getValue();
+        }
+        lengths[doc] = length;
+        totalLiveLength += length;
+        if (post.getId() != null) {
+            documentsById.put(post.getId(), doc);
+        }
+    }
+
+    /**
+     * Marks a document deleted; the caller holds the write lock.
+     */
+    private void delete(int doc) {
+        deleted.set(doc);
+        deletedCount++;
+        totalLiveLength -= lengths[doc];
+        for (String term : termFrequencies(documents.get(doc)).keySet()) {
+            postings.get(term).liveCount--;
+        }
+    }
+
+    /**
+     * Rebuilds the index from the live documents, dropping deleted ones; the caller holds the write lock.
+     */
+    private void compact() {
+        List<BlogPost> live = new ArrayList<>(documents.size() - deletedCount);
+        for (int doc = 0; doc < documents.size(); doc++) {
+            if (!deleted.get(doc)) {
+                live.add(documents.get(doc));
+            }
+        }
+        postings = new HashMap<>();
+        documents = new ArrayList<>();
+        lengths = new int[Math.max(16, live.size())];
+        deleted = new BitSet();
+        deletedCount = 0;
+        documentsById.clear();
+        totalLiveLength = 0;
+        for (BlogPost post : live) {
+            indexDocument(post, termFrequencies(post));
+        }
+    }
+
+    // --- Searching ---
+
+    /**
+     * Finds the posts best matching a free-text query. A post matches if it contains any query word;
+     * posts containing more (and rarer) query words, more often, in shorter text rank higher.
+     *
+     * @param query The search terms (e.g., "java virtual threads").
+     * @param limit The maximum number of results.
+     * @return Up to {@code limit} hits, best first (none if no word of the query occurs in any post),
+     *         and the total number of matches.
+     */
+    public Results search(String query, int limit) {
+        Map<String, Integer> queryTerms = tokenize(query, 1);
+        lock.readLock().lock();
+        try {
+            int liveDocuments = documents.size() - deletedCount;
+            if (liveDocuments == 0 || limit <= 0) {
+                return new Results(new ArrayList<>(), 0);
+            }
+            double averageLength = Math.max(1.0, (double) totalLiveLength / liveDocuments);
+            double[] scores = new double[documents.size()];
+            BitSet matched = new BitSet(documents.size());
+            for (String term : queryTerms.keySet()) {
+                Postings list = postings.get(term);
+                if (list == null || list.liveCount == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocuments - list.liveCount + 0.5) / (list.liveCount + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    double tf = list.freqs[i];
+                    double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                    scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                    matched.set(doc);
+                }
+            }
+            return new Results(topHits(scores, matched, limit), matched.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Selects the best 'limit' documents with a min-heap; the caller holds the read lock.
+     */
+    private List<Hit> topHits(double[] scores, BitSet matched, int limit) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(scores[a], scores[b]));
+        for (int doc = matched.nextSetBit(0); doc >= 0; doc = matched.nextSetBit(doc + 1)) {
+            heap.add(doc);
+            if (heap.size() > limit) {
+                heap.poll(); // Drops the lowest score
+            }
+        }
+        Hit[] hits = new Hit[heap.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int doc = heap.poll();
+            hits[i] = new Hit(documents.get(doc), scores[doc]);
+        }
+        return new ArrayList<>(Arrays.asList(hits));
+    }
+
+    /**
+     * @return The number of indexed posts (current versions only).
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Tokenization ---
+
+    private static Map<String, Integer> termFrequencies(BlogPost post) {
+        Map<String, Integer> terms = tokenize(post.getTitle(), TITLE_WEIGHT);
+        for (Map.Entry<String, Integer> term : tokenize(post.getContent(), 1).entrySet()) {
+            terms.merge(term.getKey(), term.getValue(), Integer::sum);
+        }
+        return terms;
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits and counts them, each occurrence counting 'weight'.
+     */
+    static Map<String, Integer> tokenize(String text, int weight) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start > 1 || Character.isDigit(text.charAt(start))) { // Keeps numbers like "3"
+                    String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!STOP_WORDS.contains(word)) {
+                        terms.merge(word, weight, Integer::sum);
+                    }
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
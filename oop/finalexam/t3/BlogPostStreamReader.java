@@ -0,0 +1,110 @@
+package oop.finalexam.t3;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally decodes the "?api=blogs" response with Gson's {@link JsonReader}.
+ * Each {@link BlogPost} in the "data" array is handed to a consumer as soon as it has been read,
+ * so neither the full response text nor the complete list of posts has to be held in memory,
+ * and the first post can be shown before the rest of the response has arrived.
+ */
+public class BlogPostStreamReader {
+    private final TypeAdapter<BlogPost> postAdapter;
+    private final TypeAdapter<ApiResponse.MetaData> metaAdapter;
+
+    /**
+     * Constructs a BlogPostStreamReader.
+     *
+     * @param gson The Gson instance whose adapters bind each post and the metadata (e.g., {@link BlogJson#PARSER}).
+     */
+    public BlogPostStreamReader(Gson gson) {
+        // Adapters are looked up once and called directly, skipping Gson.fromJson's per-call setup
+        this.postAdapter = gson.getAdapter(BlogPost.class);
+        this.metaAdapter = gson.getAdapter(ApiResponse.MetaData.class);
+    }
+
+    /**
+     * Reads a blog listing response from the stream, passing each post to the consumer in order.
+     * The "success" flag and the "meta" section are read wherever they appear in the object.
+     * The stream is closed when reading finishes.
+     *
+     * @param body The response body.
+     * @param consumer Receives each BlogPost as soon as it is decoded.
+     * @return An ApiResponse with the success flag and metadata; its data is the number of posts passed to the consumer.
+     * @throws IOException If reading the stream fails.
+     * @throws JsonParseException If the body is not a valid blog listing.
+     *         Exceptions thrown by the consumer are passed on unchanged.
+     */
+    public ApiResponse<Integer> read(InputStream body, Consumer<BlogPost> consumer) throws IOException {
+        boolean success = false;
+        ApiResponse.MetaData meta = null;
+        int count = 0;
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "success":
+                        success = reader.nextBoolean();
+                        break;
+                    case "data":
+                        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                            reader.skipValue(); // Error responses may carry a message instead of a list
+                            break;
+                        }
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            BlogPost post = postAdapter.read(reader); // Binds one post at a time
+                            try {
+                                consumer.accept(post);
+                            } catch (RuntimeException e) {
+                                throw new ConsumerFailure(e); // Keeps it apart from JsonReader's own exceptions
+                            }
+                            count++;
+                        }
+                        reader.endArray();
+                        break;
+                    case "meta":
+                        meta = metaAdapter.read(reader);
+                        break;
+                    default:
+                        reader.skipValue(); // Ignore fields we do not know about
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | MalformedJsonException e) {
+            // JsonReader reports unexpected tokens (e.g., a non-object body) as IllegalStateException
+            // and syntax errors as MalformedJsonException; both mean the body is not a valid listing
+            throw new JsonParseException(e.getMessage(), e);
+        } catch (ConsumerFailure e) {
+            throw (RuntimeException) e.getCause();
+        }
+
+        ApiResponse<Integer> response = new ApiResponse<>();
+        response.setSuccess(success);
+        response.setData(count);
+        response.setMeta(meta);
+        return response;
+    }
+
+    /**
+     * Carries an exception thrown by the consumer past the handler for JSON errors.
+     */
+    private static final class ConsumerFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ConsumerFailure(RuntimeException cause) {
+            super(cause);
+        }
+    }
+}
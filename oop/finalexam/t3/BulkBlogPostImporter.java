@@ -0,0 +1,271 @@
+package oop.finalexam.t3;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Creates many blog posts from a file while keeping a bounded number of POST requests in flight.
+ * The input is either a JSON array of posts or one JSON post object per line; each object needs
+ * "title", "author" and "content". The file is read incrementally, so it may be larger than memory.
+ * <p>
+ * The site's post quota is checked before the run starts, using {@link ApiResponse.StatsData#getRemaining_posts()}
+ * and {@link ApiResponse.StatsData#isCan_add_more()}. When the remaining budget is used up, the importer waits
+ * for the requests in flight, checks the statistics again and stops cleanly if the site is full.
+ */
+public class BulkBlogPostImporter {
+
+    /**
+     * The outcome of importing a single post.
+     */
+    public static final class Result {
+        private final int index;          // 0-based position of the post in the input file
+        private final String title;
+        private final boolean success;
+        private final String message;     // Failure reason, or null on success
+        private final long latencyMillis;
+
+        private Result(int index, String title, boolean success, String message, long latencyMillis) {
+            this.index = index;
+            this.title = title;
+            this.success = success;
+            this.message = message;
+            this.latencyMillis = latencyMillis;
+        }
+
+        // --- Getters ---
+        public int getIndex() {
+            return index;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + index + " \"" + title + "\": " + (success ? "created" : "FAILED - " + message) + " (" + latencyMillis + " ms)";
+        }
+    }
+
+    /**
+     * Summary of a whole import run.
+     */
+    public static final class Report {
+        private final List<Result> results;
+        private final int created;
+        private final int failed;
+        private final boolean stoppedAtQuota;
+        private final long elapsedMillis;
+
+        private Report(List<Result> results, int created, int failed, boolean stoppedAtQuota, long elapsedMillis) {
+            this.results = results;
+            this.created = created;
+            this.failed = failed;
+            this.stoppedAtQuota = stoppedAtQuota;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        // --- Getters ---
+        public List<Result> getResults() {
+            return results;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public boolean isStoppedAtQuota() {
+            return stoppedAtQuota;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return The number of completed POST requests per second.
+         */
+        public double getThroughput() {
+            return (created + failed) * 1000.0 / Math.max(elapsedMillis, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Import finished: %d created, %d failed in %.2f s (%.1f posts/s)%s",
+                    created, failed, elapsedMillis / 1000.0, getThroughput(),
+                    stoppedAtQuota ? " - stopped because the site's post quota is reached" : "");
+        }
+    }
+
+    private final ApiClient apiClient;
+    private final int maxInFlight;
+
+    /**
+     * Constructs a BulkBlogPostImporter.
+     *
+     * @param apiClient The client used for the POST and statistics requests.
+     * @param maxInFlight The maximum number of POST requests outstanding at the same time (must be positive).
+     */
+    public BulkBlogPostImporter(ApiClient apiClient, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive, got " + maxInFlight);
+        }
+        this.apiClient = apiClient;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Imports all posts from the file.
+     *
+     * @param file A JSON array of posts or a file with one JSON post object per line.
+     * @param listener Receives each per-item result as soon as the POST completes (called from client threads).
+     * @return The summary of the run, including every per-item result in completion order.
+     * @throws IOException If the file cannot be read or is not valid JSON.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for requests.
+     * @throws ApiException If the site statistics cannot be retrieved.
+     */
+    @SuppressWarnings("deprecation") // setLenient is kept for compatibility with Gson 2.10
+    public Report importFile(Path file, Consumer<Result> listener) throws IOException, InterruptedException {
+        List<Result> results = Collections.synchronizedList(new ArrayList<>());
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long start = System.currentTimeMillis();
+
+        int budget = remainingQuota(); // Checked before sending anything
+        boolean stoppedAtQuota = false;
+        int index = 0;
+
+        try (Reader fileReader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(fileReader)) {
+            reader.setLenient(true); // Allows one JSON object per line (several top-level values)
+            boolean array = reader.peek() == JsonToken.BEGIN_ARRAY;
+            if (array) {
+                reader.beginArray();
+            }
+
+            while (reader.hasNext() && reader.peek() != JsonToken.END_DOCUMENT) {
+                if (budget <= 0) {
+                    // Let every outstanding POST finish, then ask the server how much room is really left
+                    inFlight.acquire(maxInFlight);
+                    inFlight.release(maxInFlight);
+                    budget = remainingQuota();
+                    if (budget <= 0) {
+                        stoppedAtQuota = true;
+                        break;
+                    }
+                }
+
+                BlogPost post = BlogJson.PARSER.fromJson(reader, BlogPost.class);
+                int itemIndex = index++;
+                budget--;
+                inFlight.acquire(); // Blocks while maxInFlight requests are outstanding
+                long sentAt = System.currentTimeMillis();
+                apiClient.createBlogPostAsync(post.getTitle(), post.getAuthor(), post.getContent())
+                        .whenComplete((response, error) -> {
+                            Result result = toResult(itemIndex, post.getTitle(), response, error, System.currentTimeMillis() - sentAt);
+                            results.add(result);
+                            inFlight.release();
+                            listener.accept(result);
+                        });
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Invalid post file " + file + ": " + e.getMessage(), e);
+        } finally {
+            inFlight.acquire(maxInFlight); // Wait for the requests still in flight
+            inFlight.release(maxInFlight);
+        }
+
+        int created = 0;
+        synchronized (results) {
+            for (Result result : results) {
+                if (result.isSuccess()) {
+                    created++;
+                }
+            }
+        }
+        return new Report(new ArrayList<>(results), created, results.size() - created, stoppedAtQuota,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Fetches the site statistics and returns how many posts may still be added.
+     */
+    private int remainingQuota() {
+        ApiResponse<ApiResponse.StatsData> stats;
+        try {
+            stats = apiClient.getFreshSiteStatisticsAsync().join(); // From the server, not from a cached answer
+        } catch (CompletionException e) {
+            throw ApiException.from("GET", e);
+        }
+        if (!stats.isSuccess() || stats.getData() == null) {
+            throw ApiException.apiError("Could not read the site's post quota");
+        }
+        ApiResponse.StatsData data = stats.getData();
+        return data.isCan_add_more() ? data.getRemaining_posts() : 0;
+    }
+
+    /**
+     * Converts the outcome of one POST into a Result.
+     */
+    private static Result toResult(int index, String title, ApiResponse<Object> response, Throwable error, long latencyMillis) {
+        if (error != null) {
+            return new Result(index, title, false, ApiException.from("POST", error).getMessage(), latencyMillis);
+        }
+        if (!response.isSuccess()) {
+            return new Result(index, title, false, "Server rejected the post: " + response.getData(), latencyMillis);
+        }
+        return new Result(index, title, true, null, latencyMillis);
+    }
+
+    /**
+     * Runs a bulk import from the command line, using SERVER_URL from config.txt.
+     * Usage: {@code BulkBlogPostImporter <posts.json> [maxInFlight]}
+     *
+     * @param args The post file and, optionally, the maximum number of concurrent POST requests (default 16).
+     * @throws Exception If the import cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: BulkBlogPostImporter <posts.json> [maxInFlight]");
+            return;
+        }
+        String serverUrl = new ConfigLoader().getProperty("SERVER_URL");
+        if (serverUrl == null || serverUrl.trim().isEmpty()) {
+            System.err.println("Critical Error: Missing or empty SERVER_URL in config.txt.");
+            return;
+        }
+        int maxInFlight = args.length >= 2 ? Integer.parseInt(args[1]) : 16;
+
+        BulkBlogPostImporter importer = new BulkBlogPostImporter(new ApiClient(serverUrl), maxInFlight);
+        Report report = importer.importFile(Paths.get(args[0]), System.out::println);
+        System.out.println(report);
+    }
+}
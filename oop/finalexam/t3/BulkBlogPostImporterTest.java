@@ -0,0 +1,135 @@
+package oop.finalexam.t3;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Checks {@link BulkBlogPostImporter} against a {@link StubBlogServer}:
+ * <ul>
+ *     <li>a JSON array file and a JSON-lines file with the same posts both import completely,</li>
+ *     <li>no more than {@code maxInFlight} POST requests reach the server at the same time, and the cap is
+ *     actually used when the server is slow, and</li>
+ *     <li>when the file holds more posts than the site's remaining quota, exactly the remaining posts are
+ *     created and the run reports that it stopped at the quota.</li>
+ * </ul>
+ * Each check uses a fresh stub server and an uncached client. Prints one line per check and exits with
+ * status 1 if any check fails.
+ * <p>
+ * Usage: {@code BulkBlogPostImporterTest [posts] [maxInFlight] [serverLatencyMillis]}
+ * (defaults: 40 posts, 4 in flight, 30 ms per request).
+ */
+public class BulkBlogPostImporterTest {
+    private static int failures;
+
+    /**
+     * Runs all checks.
+     *
+     * @param args Optional number of posts, in-flight cap and server latency.
+     * @throws Exception If a stub server or a temporary file cannot be created.
+     */
+    public static void main(String[] args) throws Exception {
+        int posts = args.length >= 1 ? Integer.parseInt(args[0]) : 40;
+        int maxInFlight = args.length >= 2 ? Integer.parseInt(args[1]) : 4;
+        long latency = args.length >= 3 ? Long.parseLong(args[2]) : 30;
+
+        Path arrayFile = writePosts(posts, true);
+        Path linesFile = writePosts(posts, false);
+        try {
+            // --- Both input formats, with the in-flight cap ---
+            for (Path file : List.of(arrayFile, linesFile)) {
+                String format = file == arrayFile ? "JSON array" : "JSON lines";
+                StubBlogServer stub = new StubBlogServer(posts * 2).start(0);
+                stub.setLatency(latency, 0);
+                try {
+                    BulkBlogPostImporter.Report report = new BulkBlogPostImporter(newClient(stub), maxInFlight)
+                            .importFile(file, result -> { });
+                    check(format + ": all posts created", report.getCreated() == posts && report.getFailed() == 0
+                            && !report.isStoppedAtQuota() && serverTotal(stub) == posts, report.toString());
+                    check(format + ": every item reported once", indexes(report).equals(expectedIndexes(posts)),
+                            report.getResults().size() + " results");
+                    int peak = stub.getPeakConcurrentRequests();
+                    check(format + ": POSTs in flight capped", peak <= maxInFlight
+                                    && (posts < maxInFlight || peak == maxInFlight),
+                            "peak " + peak + " concurrent requests, cap " + maxInFlight);
+                } finally {
+                    stub.stop();
+                }
+            }
+
+            // --- Quota ---
+            int quota = posts / 2;
+            int seeded = quota / 3;
+            StubBlogServer stub = new StubBlogServer(quota).start(0);
+            stub.seed(seeded, 50);
+            try {
+                BulkBlogPostImporter.Report report = new BulkBlogPostImporter(newClient(stub), maxInFlight)
+                        .importFile(arrayFile, result -> { });
+                check("quota: only the remaining posts created", report.getCreated() == quota - seeded
+                        && report.getFailed() == 0 && serverTotal(stub) == quota, report.toString());
+                check("quota: run reports the stop", report.isStoppedAtQuota(), report.toString());
+            } finally {
+                stub.stop();
+            }
+        } finally {
+            Files.deleteIfExists(arrayFile);
+            Files.deleteIfExists(linesFile);
+        }
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static ApiClient newClient(StubBlogServer stub) {
+        TransportConfig transport = TransportConfig.defaults();
+        return new ApiClient(stub.getBaseUrl(), transport.createExecutor(), new ApiResponseCache(1, Map.of()), transport);
+    }
+
+    /**
+     * Writes the posts to a temporary file, either as one JSON array or as one object per line.
+     */
+    private static Path writePosts(int count, boolean array) throws IOException {
+        List<String> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add("{\"title\":\"Imported post " + i + "\",\"author\":\"importer\",\"content\":\"Line one\\nline two of post " + i + "\"}");
+        }
+        String text = array ? "[\n" + String.join(",\n", objects) + "\n]\n" : String.join("\n", objects) + "\n";
+        Path file = Files.createTempFile("bulk-import", array ? ".json" : ".jsonl");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /**
+     * Reads the number of posts on the server from the statistics endpoint.
+     */
+    private static int serverTotal(StubBlogServer stub) {
+        return newClient(stub).getSiteStatisticsAsync().join().getData().getTotal_posts();
+    }
+
+    private static TreeSet<Integer> indexes(BulkBlogPostImporter.Report report) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (BulkBlogPostImporter.Result result : report.getResults()) {
+            indexes.add(result.getIndex());
+        }
+        return report.getResults().size() == indexes.size() ? indexes : new TreeSet<>(); // Duplicates fail the check
+    }
+
+    private static TreeSet<Integer> expectedIndexes(int count) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    private static void check(String name, boolean passed, String details) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name + " (" + details + ")");
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package oop.finalexam.t3;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken; // Important for parsing lists of objects
-import java.lang.reflect.Type;
-import java.util.List;
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.time.Duration;
 
 /*
  * ==============================================================================
@@ -34,30 +33,31 @@ import java.util.Scanner;
  * The main class for the ChatBot Console Application.
  * This application provides a user-friendly interface to interact with a REST API
  * for managing blog posts and retrieving site statistics.
- * It loads server URL and bot name from a configuration file.
+ * It loads server URL and bot name from a configuration file, and reloads the tuning settings when the file changes.
+ * <p>
+ * By default it chats with a single user on the console. Started with {@code --server [port]}, it
+ * instead serves many concurrent users over TCP (see {@link ChatBotServer}); the conversation itself
+ * is implemented by {@link ChatSession} in both modes.
  */
 public class ChatBotApp {
-    private static String botName;
-    private static ApiClient apiClient;
-    private static Scanner scanner;
-    private static Gson gson; // Gson instance for JSON parsing
+    private static final int DEFAULT_MIRROR_REFRESH_SECONDS = 60;
+    private static final int DEFAULT_CHAT_PORT = 5050;
 
     /**
      * The entry point of the chatbot application.
-     * Initializes configuration, API client, and starts the chat interaction.
+     * Initializes configuration and the shared API client, then starts the console chat or the chat server.
      *
-     * @param args Command line arguments (not used).
+     * @param args Optional {@code --server [port]} to serve sessions over TCP (default port: CHAT_PORT in
+     *             config.txt, or 5050).
+     * @throws IOException If reading the console fails or the server port cannot be bound.
+     * @throws InterruptedException If the server's main thread is interrupted.
      */
-    public static void main(String[] args) {
-        scanner = new Scanner(System.in); // Initialize scanner for user input
-        // Use GsonBuilder to enable pretty printing for readable JSON output in console
-        gson = new GsonBuilder().setPrettyPrinting().create();
-
+    public static void main(String[] args) throws IOException, InterruptedException {
         ConfigLoader config = new ConfigLoader(); // Load configuration
 
         // Retrieve configurable properties
         String serverUrl = config.getProperty("SERVER_URL");
-        botName = config.getProperty("BOT_NAME");
+        String botName = config.getProperty("BOT_NAME");
 
         // Validate configuration: ensure both URL and bot name are present and not empty
         if (serverUrl == null || serverUrl.trim().isEmpty() || botName == null || botName.trim().isEmpty()) {
@@ -65,172 +65,76 @@ public class ChatBotApp {
             return; // Exit application if configuration is invalid
         }
 
-        apiClient = new ApiClient(serverUrl); // Initialize API client with the loaded URL
+        // Initialize API client with the loaded URL and the optional transport settings from config.txt
+        ApiClient apiClient = new ApiClient(serverUrl, TransportConfig.fromConfig(config));
+        apiClient.applyConfig(config.getSettings()); // Cache settings
+        apiClient.getMetrics().registerMBean(); // Makes the client metrics visible in JConsole/VisualVM
+        BlogPostMirror mirror = openMirror(config, apiClient);
+        watchConfig(config, apiClient, mirror);
+
+        if (args.length >= 1 && args[0].equals("--server")) {
+            String configuredPort = config.getProperty("CHAT_PORT");
+            int port = args.length >= 2 ? Integer.parseInt(args[1])
+                    : configuredPort != null ? Integer.parseInt(configuredPort.trim()) : DEFAULT_CHAT_PORT;
+            ChatBotServer server = new ChatBotServer(botName, apiClient, mirror).start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close)); // Ctrl+C disconnects sessions cleanly
+            System.out.println(botName + " is serving chat sessions on port " + server.getPort() + " (Ctrl+C to stop).");
+            Thread.currentThread().join(); // The acceptor runs in the background until the JVM is stopped
+            return;
+        }
 
-        System.out.println("Hello! I'm " + botName + ", your blog management assistant.");
-        startChat(); // Begin the interactive chat session
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+        new ChatSession(console, System.out, System.err, botName, apiClient, mirror).run(); // Begin the interactive chat session
     }
 
     /**
-     * Manages the main chat loop, displaying menu options and handling user choices.
-     * The loop continues until the user chooses to exit (option 4).
+     * Reloads config.txt whenever it is saved and applies the new settings to the running client and
+     * mirror, so tuning the timeouts, the cache or the refresh interval needs no restart.
+     * SERVER_URL is not switched while running (see {@link ApiClient#applyConfig}), so the mirror never mixes
+     * posts of two servers.
      */
-    private static void startChat() {
-        int choice;
-        do {
-            displayMenu(); // Show available options to the user
-            System.out.print("Enter your choice: ");
-            try {
-                choice = Integer.parseInt(scanner.nextLine()); // Read user input as an integer
-                handleChoice(choice); // Process the user's choice
-            } catch (NumberFormatException e) {
-                // Handle cases where user enters non-numeric input
-                System.out.println("Invalid input. Please enter a number corresponding to a menu option.");
-                choice = -1; // Set to an invalid choice to re-display the menu
+    private static void watchConfig(ConfigLoader config, ApiClient apiClient, BlogPostMirror mirror) {
+        config.addListener((previous, current) -> {
+            apiClient.applyConfig(current);
+            if (mirror != null && current.changedKeys(previous).contains("MIRROR_REFRESH_SECONDS")) {
+                mirror.startBackgroundRefresh(Duration.ofSeconds(
+                        current.getInt("MIRROR_REFRESH_SECONDS", DEFAULT_MIRROR_REFRESH_SECONDS)));
             }
-            System.out.println(); // Add a newline for better visual separation between interactions
-        } while (choice != 4); // Loop until user selects option 4 (Exit)
-    }
-
-    /**
-     * Displays the main menu options to the console, guiding the user on available actions.
-     */
-    private static void displayMenu() {
-        System.out.println("\n--- Main Menu ---");
-        System.out.println("1. Create New Blog Post");
-        System.out.println("2. View All Blog Posts");
-        System.out.println("3. View Site Statistics");
-        System.out.println("4. Exit");
-        System.out.println("-----------------");
-    }
-
-    /**
-     * Handles the user's menu choice by delegating to the appropriate functionality method.
-     *
-     * @param choice The integer choice made by the user.
-     */
-    private static void handleChoice(int choice) {
-        switch (choice) {
-            case 1:
-                createNewBlogPost();
-                break;
-            case 2:
-                viewAllBlogPosts();
-                break;
-            case 3:
-                viewSiteStatistics();
-                break;
-            case 4:
-                System.out.println("Goodbye! Thanks for chatting with " + botName + ".");
-                scanner.close(); // Close the scanner to release system resources when exiting
-                break;
-            default:
-                System.out.println("Invalid choice. Please select an option from 1 to 4.");
-        }
-    }
-
-    /**
-     * Prompts the user for details (title, author, content) for a new blog post
-     * and sends a POST request to the server to create it. It then parses
-     * the server's response to confirm success or report failure.
-     */
-    private static void createNewBlogPost() {
-        System.out.println("\n--- Create New Blog Post ---");
-        System.out.print("Enter post title: ");
-        String title = scanner.nextLine();
-        System.out.print("Enter author name: ");
-        String author = scanner.nextLine();
-        System.out.print("Enter post content: ");
-        String content = scanner.nextLine();
-
-        System.out.println("Attempting to create post...");
-        String rawResponse = apiClient.createBlogPost(title, author, content);
-        System.out.println("Server Raw Response: " + rawResponse); // Always show raw response for debugging
-
+        });
         try {
-            // Parse the raw JSON response into a generic ApiResponse to check the 'success' flag
-            // The data payload for creation might be a simple message or the created object itself.
-            ApiResponse<Object> response = gson.fromJson(rawResponse, new TypeToken<ApiResponse<Object>>(){}.getType());
-
-            if (response != null && response.isSuccess()) {
-                System.out.println("Post created successfully!");
-                // Optionally, you could parse the 'data' field further if it contains the new post's details
-                // For example: BlogPost createdPost = gson.fromJson(gson.toJson(response.getData()), BlogPost.class);
-                // System.out.println("New Post ID: " + createdPost.getId());
-            } else {
-                System.out.println("Failed to create post.");
-                if (response != null && response.getData() != null) {
-                    System.out.println("Details: " + gson.toJson(response.getData()));
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing post creation response: " + e.getMessage());
+            config.startWatching();
+        } catch (IOException e) {
+            System.err.println("config.txt will not be reloaded automatically: " + e.getMessage());
         }
     }
 
     /**
-     * Fetches all existing blog posts from the server via a GET request
-     * and displays them in a readable format using Gson parsing and the BlogPost's toString method.
+     * Opens the local mirror of blog posts if MIRROR_FILE is set in config.txt, and refreshes it in the
+     * background every MIRROR_REFRESH_SECONDS (default 60, 0 disables periodic refreshes).
+     * The mirror is opt-in because it writes a file and, against a server that ignores updated_since,
+     * downloads the full listing on every refresh (see {@link BlogPostMirror}).
+     *
+     * @return The mirror, or null if MIRROR_FILE is not set or the file cannot be read, in which case the
+     *         application works online only.
      */
-    private static void viewAllBlogPosts() {
-        System.out.println("\n--- All Blog Posts ---");
-        System.out.println("Fetching posts...");
-        String rawResponse = apiClient.getAllBlogPosts();
-
-        // Define the specific type for Gson to parse: ApiResponse containing a List of BlogPost objects
-        Type blogListType = new TypeToken<ApiResponse<List<BlogPost>>>(){}.getType();
-        ApiResponse<List<BlogPost>> response = null;
-
-        try {
-            response = gson.fromJson(rawResponse, blogListType);
-        } catch (Exception e) {
-            System.err.println("Error parsing blog posts response: " + e.getMessage());
-            System.out.println("Raw Server Response (for debugging):\n" + rawResponse);
-            return;
+    private static BlogPostMirror openMirror(ConfigLoader config, ApiClient apiClient) {
+        String mirrorFile = config.getProperty("MIRROR_FILE");
+        if (mirrorFile == null || mirrorFile.isBlank()) {
+            return null; // No mirror configured: posts are fetched online
         }
-
-        if (response != null && response.isSuccess() && response.getData() != null) {
-            if (response.getData().isEmpty()) {
-                System.out.println("No blog posts found.");
-            } else {
-                System.out.println("Found " + response.getMeta().getTotal() + " posts:");
-                for (BlogPost post : response.getData()) {
-                    System.out.println("\n" + post.toString()); // Uses the overridden toString() in BlogPost for clean display
-                }
-                System.out.println("------------------------------------");
-            }
-        } else {
-            System.out.println("Failed to retrieve blog posts. Server response might indicate an error or be empty.");
-            System.out.println("Raw Server Response (for debugging):\n" + rawResponse);
-        }
-    }
-
-    /**
-     * Fetches general site statistics from the server via a GET request
-     * and displays them in a readable format using Gson parsing and the StatsData's toString method.
-     */
-    private static void viewSiteStatistics() {
-        System.out.println("\n--- Site Statistics ---");
-        System.out.println("Fetching statistics...");
-        String rawResponse = apiClient.getSiteStatistics();
-
-        // Define the specific type for Gson to parse: ApiResponse containing a StatsData object
-        Type statsType = new TypeToken<ApiResponse<ApiResponse.StatsData>>(){}.getType();
-        ApiResponse<ApiResponse.StatsData> response = null;
-
+        String refreshSeconds = config.getProperty("MIRROR_REFRESH_SECONDS");
         try {
-            response = gson.fromJson(rawResponse, statsType);
-        } catch (Exception e) {
-            System.err.println("Error parsing statistics response: " + e.getMessage());
-            System.out.println("Raw Server Response (for debugging):\n" + rawResponse);
-            return;
-        }
-
-        if (response != null && response.isSuccess() && response.getData() != null) {
-            System.out.println(response.getData().toString()); // Uses the overridden toString() in StatsData for clean display
-        } else {
-            System.out.println("Failed to retrieve site statistics. Server response might indicate an error or be empty.");
-            System.out.println("Raw Server Response (for debugging):\n" + rawResponse);
+            int seconds = refreshSeconds != null ? Integer.parseInt(refreshSeconds.trim()) : DEFAULT_MIRROR_REFRESH_SECONDS;
+            BlogPostMirror mirror = new BlogPostMirror(Path.of(mirrorFile), apiClient);
+            mirror.startBackgroundRefresh(Duration.ofSeconds(seconds));
+            if (!mirror.isEmpty()) {
+                System.out.println("Loaded " + mirror.size() + " posts from the local mirror in " + mirror.getLoadMillis() + " ms.");
+                mirror.refreshAsync(); // Catch up with changes made since the last session
+            }
+            return mirror;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Local post mirror unavailable, posts will be fetched online: " + e.getMessage());
+            return null;
         }
     }
 }
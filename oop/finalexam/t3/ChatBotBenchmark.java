@@ -0,0 +1,356 @@
+package oop.finalexam.t3;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end benchmark of the three {@link ChatBotApp} operations ("Create New Blog Post", "View All Blog Posts"
+ * and "View Site Statistics") against an in-process {@link StubBlogServer}, for several listing sizes.
+ * <p>
+ * Each operation is run in two ways:
+ * <ul>
+ *     <li>as a pipeline of separately timed stages: building the request body ("encode", create only),
+ *     the HTTP exchange up to the last response byte ("http"), decoding the bytes as {@code BodyHandlers.ofString}
+ *     does ("ofString"), {@code fromJson} with {@link BlogJson#PARSER} ("fromJson"), rendering with the models'
+ *     {@code toString} ("toString") and printing ("console"), and</li>
+ *     <li>end to end, as a scripted, headless {@link ChatSession} without a mirror, i.e., the code path the
+ *     console app takes (for the listing, that is the streaming reader).</li>
+ * </ul>
+ * For every stage the mean, p50 and p99 latency, its share of the pipeline and the bytes allocated per run
+ * are reported. Allocation counts the calling thread and the HTTP client's threads, not the stub server's.
+ * Console output goes to a discarding stream, so the terminal's own rendering time is not included.
+ * <p>
+ * Usage: {@code ChatBotBenchmark [postCounts] [contentLengths] [runs] [csvFile]}
+ * (defaults: "10,100,1000" posts, "200,2000" characters of content per post, 50 runs per case).
+ * The optional CSV file receives one row per case and stage, so runs of different versions can be compared.
+ */
+public class ChatBotBenchmark {
+    private static final String CLIENT_THREAD_PREFIX = "bench-client-";
+
+    /**
+     * The latency and allocation of one stage over all runs of a case.
+     */
+    private static final class Stage {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long allocatedBytes;   // Summed over all runs; -1 if the JVM does not report allocations
+    }
+
+    /**
+     * Times consecutive stages of one run, recording each into the stages of its case.
+     */
+    private static final class StageTimer {
+        private final Map<String, Stage> stages;
+        private final long[] threadIds;
+        private long startNanos;
+        private long startAllocated;
+
+        StageTimer(Map<String, Stage> stages) {
+            this.stages = stages;
+            this.threadIds = measuredThreads(); // Looked up before timing starts, as the lookup itself allocates
+            this.startAllocated = allocatedBytes(threadIds);
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Ends the current stage and starts the next one.
+         */
+        void end(String stage) {
+            long now = System.nanoTime();
+            long allocated = allocatedBytes(threadIds);
+            Stage record = stages.computeIfAbsent(stage, k -> new Stage());
+            record.latency.recordNanos(now - startNanos);
+            record.allocatedBytes = record.allocatedBytes < 0 || allocated < 0 ? -1 : record.allocatedBytes + allocated - startAllocated;
+            startAllocated = allocated;
+            startNanos = System.nanoTime();
+        }
+    }
+
+    private final HttpClient http;
+    private final ApiClient apiClient;
+    private final String baseUrl;
+    private final String content;
+    private final PrintStream console = new PrintStream(OutputStream.nullOutputStream(), true, StandardCharsets.UTF_8);
+    private final List<String> failures = new ArrayList<>();
+
+    private ChatBotBenchmark(HttpClient http, ApiClient apiClient, String baseUrl, int contentLength) {
+        this.http = http;
+        this.apiClient = apiClient;
+        this.baseUrl = baseUrl;
+        this.content = "Benchmark content. ".repeat(contentLength / 19 + 1).substring(0, contentLength);
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional post counts and content lengths (comma-separated), runs per case and CSV file.
+     * @throws Exception If the stub server cannot be started or the CSV file cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] postCounts = parseList(args.length >= 1 ? args[0] : "10,100,1000");
+        int[] contentLengths = parseList(args.length >= 2 ? args[1] : "200,2000");
+        int runs = args.length >= 3 ? Integer.parseInt(args[2]) : 50;
+        Path csvFile = args.length >= 4 ? Path.of(args[3]) : null;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2, task -> {
+            Thread thread = new Thread(task, CLIENT_THREAD_PREFIX + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        TransportConfig transport = TransportConfig.defaults();
+        HttpClient http = transport.buildHttpClient(executor);
+
+        List<String> csv = new ArrayList<>();
+        csv.add("operation,posts,content_chars,stage,mean_ms,p50_ms,p99_ms,alloc_bytes_per_run");
+        for (int postCount : postCounts) {
+            for (int contentLength : contentLengths) {
+                // The warm-up lets the JIT compile every path first. Each pass gets a fresh server, so the
+                // posts created by the warm-up do not enlarge the measured listing
+                for (boolean warmUp : new boolean[]{true, false}) {
+                    StubBlogServer stub = new StubBlogServer(postCount + 2 * runs + 100).start(0);
+                    stub.seed(postCount, contentLength);
+                    // A one-entry cache without TTLs never serves a response, so every run reaches the server
+                    ApiClient apiClient = new ApiClient(stub.getBaseUrl(), executor, new ApiResponseCache(1, Map.of()), transport);
+                    ChatBotBenchmark benchmark = new ChatBotBenchmark(http, apiClient, stub.getBaseUrl(), contentLength);
+                    benchmark.runCase(warmUp ? Math.max(1, runs / 2) : runs, warmUp ? null : System.out, postCount, csv);
+                    stub.stop();
+                }
+            }
+        }
+        executor.shutdownNow();
+
+        if (csvFile != null) {
+            Files.write(csvFile, csv, StandardCharsets.UTF_8);
+            System.out.println("Results written to " + csvFile);
+        }
+    }
+
+    /**
+     * Runs the three operations of one case 'runs' times each, and reports them unless 'report' is null.
+     */
+    private void runCase(int runs, PrintStream report, int postCount, List<String> csv) throws IOException {
+        Map<String, Map<String, Stage>> operations = new LinkedHashMap<>();
+        Map<String, Integer> responseBytes = new LinkedHashMap<>();
+        String[] scripts = {"2\n9\n", "3\n9\n", "1\nBenchmark post\nbench\n" + content + "\n9\n"};
+        String[] names = {"View All Blog Posts", "View Site Statistics", "Create New Blog Post"};
+        for (int i = 0; i < names.length; i++) {
+            Map<String, Stage> stages = new LinkedHashMap<>();
+            operations.put(names[i], stages);
+            for (int run = 0; run < runs; run++) {
+                int bytes = i == 0 ? viewAllStaged(new StageTimer(stages))
+                        : i == 1 ? statisticsStaged(new StageTimer(stages))
+                        : createStaged(new StageTimer(stages));
+                responseBytes.put(names[i], bytes);
+                StageTimer session = new StageTimer(stages);
+                runSession(scripts[i]);
+                session.end("ChatSession end to end");
+            }
+        }
+        if (report == null) {
+            return;
+        }
+        for (Map.Entry<String, Map<String, Stage>> operation : operations.entrySet()) {
+            report.printf("%n== %s: %d posts x %d chars, response %,d bytes, %d runs ==%n",
+                    operation.getKey(), postCount, content.length(), responseBytes.get(operation.getKey()), runs);
+            String csvPrefix = operation.getKey() + "," + postCount + "," + content.length() + ",";
+            printStages(report, csvPrefix, operation.getValue(), runs, csv);
+        }
+        if (!failures.isEmpty()) {
+            report.println("Failed runs: " + failures.size() + " (first: " + failures.get(0) + ")");
+            failures.clear();
+        }
+    }
+
+    // --- Staged pipelines ---
+
+    /**
+     * "View All Blog Posts" as separate stages: GET, decode, parse, render every post, print.
+     *
+     * @return The size of the response body in bytes.
+     */
+    private int viewAllStaged(StageTimer timer) throws IOException {
+        byte[] bytes = exchange(HttpRequest.newBuilder(URI.create(baseUrl + "?api=blogs")).GET().build());
+        timer.end("http");
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        timer.end("ofString");
+        ApiResponse<List<BlogPost>> response = BlogJson.PARSER.fromJson(body, BlogJson.BLOG_LIST_TYPE);
+        timer.end("fromJson");
+        List<BlogPost> posts = response != null && response.getData() != null ? response.getData() : List.of();
+        String[] lines = new String[posts.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "\n" + posts.get(i).toString();
+        }
+        timer.end("toString");
+        for (String line : lines) {
+            console.println(line);
+        }
+        console.println("------------------------------------");
+        console.println("Found " + lines.length + " posts.");
+        timer.end("console");
+        return bytes.length;
+    }
+
+    /**
+     * "View Site Statistics" as separate stages.
+     *
+     * @return The size of the response body in bytes.
+     */
+    private int statisticsStaged(StageTimer timer) throws IOException {
+        byte[] bytes = exchange(HttpRequest.newBuilder(URI.create(baseUrl + "?api=stats")).GET().build());
+        timer.end("http");
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        timer.end("ofString");
+        ApiResponse<ApiResponse.StatsData> response = BlogJson.PARSER.fromJson(body, BlogJson.STATS_TYPE);
+        timer.end("fromJson");
+        String text = response != null && response.getData() != null ? response.getData().toString() : "";
+        timer.end("toString");
+        console.println(text);
+        timer.end("console");
+        return bytes.length;
+    }
+
+    /**
+     * "Create New Blog Post" as separate stages, starting with building the JSON body.
+     *
+     * @return The size of the response body in bytes.
+     */
+    private int createStaged(StageTimer timer) throws IOException {
+        JsonBodyWriter writer = JsonBodyWriter.acquire();
+        byte[] json = writer.beginObject().field("title", "Benchmark post").field("author", "bench")
+                .field("content", content).endObject().toByteArray();
+        writer.release();
+        timer.end("encode");
+        byte[] bytes = exchange(HttpRequest.newBuilder(URI.create(baseUrl + "?api=blogs"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json)).build());
+        timer.end("http");
+        String body = new String(bytes, StandardCharsets.UTF_8);
+        timer.end("ofString");
+        ApiResponse<Object> response = BlogJson.PARSER.fromJson(body, BlogJson.GENERIC_TYPE);
+        timer.end("fromJson");
+        String raw = "Server Raw Response: " + body;
+        String outcome = response != null && response.isSuccess() ? "Post created successfully!" : "Failed to create post.";
+        timer.end("toString");
+        console.println(raw);
+        console.println(outcome);
+        timer.end("console");
+        return bytes.length;
+    }
+
+    /**
+     * Sends a request and returns the body bytes, noting a failure for a non-2xx status.
+     */
+    private byte[] exchange(HttpRequest request) throws IOException {
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                failures.add(request.method() + " " + request.uri() + " returned " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Runs one headless chat session with the given input and discards its output.
+     */
+    private void runSession(String script) throws IOException {
+        new ChatSession(new BufferedReader(new StringReader(script)), console, console, "BenchBot", apiClient, null).run();
+    }
+
+    // --- Reporting ---
+
+    private static void printStages(PrintStream report, String csvPrefix, Map<String, Stage> stages, int runs, List<String> csv) {
+        double pipelineMillis = 0;
+        long pipelineAllocated = 0;
+        for (Map.Entry<String, Stage> stage : stages.entrySet()) {
+            if (!stage.getKey().startsWith("ChatSession")) {
+                pipelineMillis += stage.getValue().latency.getMeanMillis();
+                long allocated = stage.getValue().allocatedBytes;
+                pipelineAllocated = pipelineAllocated < 0 || allocated < 0 ? -1 : pipelineAllocated + allocated;
+            }
+        }
+        report.printf("%-24s %9s %9s %9s %7s %15s%n", "stage", "mean ms", "p50 ms", "p99 ms", "share", "alloc/run");
+        for (Map.Entry<String, Stage> entry : stages.entrySet()) {
+            Stage stage = entry.getValue();
+            boolean endToEnd = entry.getKey().startsWith("ChatSession");
+            if (endToEnd) {
+                report.printf("%-24s %9.3f %9s %9s %7s %15s%n", "sum of stages", pipelineMillis, "", "", "100%",
+                        bytes(pipelineAllocated, runs));
+            }
+            double mean = stage.latency.getMeanMillis();
+            double p50 = stage.latency.getPercentileMillis(50);
+            double p99 = stage.latency.getPercentileMillis(99);
+            String share = endToEnd ? "" : String.format(Locale.ROOT, "%.1f%%", pipelineMillis > 0 ? 100 * mean / pipelineMillis : 0);
+            report.printf("%-24s %9.3f %9.3f %9.3f %7s %15s%n", entry.getKey(), mean, p50, p99, share, bytes(stage.allocatedBytes, runs));
+            csv.add(String.format(Locale.ROOT, "%s%s,%.4f,%.4f,%.4f,%d", csvPrefix, entry.getKey(), mean, p50, p99,
+                    stage.allocatedBytes < 0 ? -1 : stage.allocatedBytes / runs));
+        }
+    }
+
+    private static String bytes(long total, int runs) {
+        return total >= 0 ? String.format("%,d B", total / runs) : "n/a";
+    }
+
+    // --- Allocation counters ---
+
+    /**
+     * The ids of the threads whose allocations count: the calling thread and the HTTP client's threads.
+     */
+    private static long[] measuredThreads() {
+        List<Long> ids = new ArrayList<>();
+        ids.add(Thread.currentThread().getId());
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && (info.getThreadName().startsWith(CLIENT_THREAD_PREFIX) || info.getThreadName().startsWith("HttpClient-"))) {
+                ids.add(info.getThreadId());
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Bytes allocated so far by the given threads, or a negative value if the JVM does not report it.
+     */
+    private static long allocatedBytes(long[] threadIds) {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            long total = 0;
+            for (long allocated : threads.getThreadAllocatedBytes(threadIds)) {
+                total += Math.max(0, allocated); // Threads that ended meanwhile report -1
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    private static int[] parseList(String text) {
+        String[] parts = text.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+}
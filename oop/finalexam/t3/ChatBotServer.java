@@ -0,0 +1,182 @@
+package oop.finalexam.t3;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import oop.finalexam.VirtualThreads;
+
+/**
+ * Serves the chatbot to many users at once over plain TCP (e.g., {@code nc localhost 5050} or telnet).
+ * Every connection gets its own {@link ChatSession} running on its own thread - a virtual thread on
+ * Java 21+, see {@link VirtualThreads} - so a session blocked on the user or on the blog API costs
+ * almost nothing. All sessions share one thread-safe {@link ApiClient} and {@link BlogPostMirror}.
+ * <p>
+ * Sessions that stay silent longer than the idle timeout are disconnected.
+ */
+public class ChatBotServer implements AutoCloseable {
+    private static final int BACKLOG = 1024;                       // Pending connections queued by the OS
+    private static final int IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000; // Disconnect sessions idle for 10 minutes
+
+    private final String botName;
+    private final ApiClient apiClient;
+    private final BlogPostMirror mirror;
+    private final ExecutorService sessions = VirtualThreads.newExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong totalSessions = new AtomicLong();
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a ChatBotServer.
+     *
+     * @param botName The name the bot introduces itself with.
+     * @param apiClient The client shared by all sessions.
+     * @param mirror The local post mirror shared by all sessions, or null to always fetch posts online.
+     */
+    public ChatBotServer(String botName, ApiClient apiClient, BlogPostMirror mirror) {
+        this.botName = botName;
+        this.apiClient = apiClient;
+        this.mirror = mirror;
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     *
+     * @param port The TCP port, or 0 to pick a free one (see {@link #getPort()}).
+     * @return This server, for chaining.
+     * @throws IOException If the port cannot be bound.
+     */
+    public ChatBotServer start(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port), BACKLOG);
+        acceptor = new Thread(this::acceptLoop, "chatbot-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Error accepting a connection: " + e.getMessage());
+                }
+                continue;
+            }
+            totalSessions.incrementAndGet();
+            openSockets.add(socket);
+            if (closed) { // close() may already have closed the open sockets without this one
+                openSockets.remove(socket);
+                closeQuietly(socket);
+                return;
+            }
+            try {
+                sessions.execute(() -> serve(socket));
+            } catch (RejectedExecutionException e) {
+                // The server is shutting down; the session never starts, so its socket is closed here
+                openSockets.remove(socket);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * Runs one session until the user exits, disconnects or stays idle too long.
+     */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true); // Prompts are small writes that should not wait for more data
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            // Not auto-flushing: the session flushes before every read, so a listing goes out in few packets
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, StandardCharsets.UTF_8);
+            new ChatSession(in, out, out, botName, apiClient, mirror).run();
+        } catch (SocketTimeoutException e) {
+            // Idle too long; closing the socket ends the session
+        } catch (SocketException e) {
+            // The client disconnected abruptly or the server is shutting down
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Session from " + socket.getRemoteSocketAddress() + " failed: " + e);
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Stops accepting connections and disconnects all open sessions.
+     * The acceptor is stopped first, so a connection it accepted just before cannot be missed
+     * when the open sockets are closed, nor handed to a session executor that has already shut down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the server socket: " + e.getMessage());
+        }
+        try {
+            acceptor.join(); // Returns promptly: closing the server socket unblocks accept()
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Carry on; the acceptor closes a late connection itself once it sees 'closed'
+        }
+        for (Socket socket : openSockets) {
+            closeQuietly(socket); // Unblocks the session's pending read
+        }
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+    }
+
+    // --- Getters ---
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The number of currently connected sessions.
+     */
+    public int getActiveSessionCount() {
+        return openSockets.size();
+    }
+
+    /**
+     * @return The number of sessions accepted since the server started.
+     */
+    public long getTotalSessionCount() {
+        return totalSessions.get();
+    }
+}
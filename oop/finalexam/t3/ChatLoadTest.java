@@ -0,0 +1,118 @@
+package oop.finalexam.t3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import oop.finalexam.VirtualThreads;
+
+/**
+ * Load test for {@link ChatBotServer}: runs thousands of scripted chat sessions concurrently against an
+ * in-process server backed by a {@link StubBlogServer}, and reports session throughput, session duration
+ * percentiles, the peak number of concurrent sessions and how many requests actually reached the blog API
+ * (concurrent identical requests are coalesced and cached by the shared {@link ApiClient}).
+ * <p>
+ * Each session views the statistics and the post listing and then exits; every tenth session also creates a post.
+ * All sessions are released at the same moment, each on its own (virtual, on Java 21+) thread.
+ * <p>
+ * Usage: {@code ChatLoadTest [sessions] [seedPosts] [apiLatencyMillis]} (defaults: 2000 sessions, 50 posts, 20 ms).
+ */
+public class ChatLoadTest {
+    private static final String BROWSE_SCRIPT = "3\n2\n9\n";  // Statistics, all posts, exit
+
+    /**
+     * Runs the load test.
+     *
+     * @param args Optional number of sessions, number of posts on the stub server and its latency.
+     * @throws Exception If the servers cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length >= 1 ? Integer.parseInt(args[0]) : 2000;
+        int seedPosts = args.length >= 2 ? Integer.parseInt(args[1]) : 50;
+        long apiLatency = args.length >= 3 ? Long.parseLong(args[2]) : 20;
+
+        StubBlogServer stub = new StubBlogServer(seedPosts + sessions).start(0);
+        stub.seed(seedPosts, 200);
+        stub.setLatency(apiLatency, apiLatency / 2);
+        Path mirrorFile = Files.createTempFile("chat-load-mirror", ".jsonl");
+        Files.delete(mirrorFile); // Start with an empty mirror, as on a first run
+
+        ApiClient apiClient = new ApiClient(stub.getBaseUrl());
+        BlogPostMirror mirror = new BlogPostMirror(mirrorFile, apiClient);
+        ChatBotServer server = new ChatBotServer("LoadBot", apiClient, mirror).start(0);
+
+        LatencyHistogram durations = new LatencyHistogram();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger peakSessions = new AtomicInteger();
+        AtomicLong bytesReceived = new AtomicLong();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(sessions);
+
+        ExecutorService clients = VirtualThreads.newExecutor();
+        for (int i = 0; i < sessions; i++) {
+            String script = i % 10 == 0
+                    ? "1\nLoad test post " + i + "\nload-tester\nPosted by session " + i + "\n" + BROWSE_SCRIPT
+                    : BROWSE_SCRIPT;
+            clients.execute(() -> {
+                try {
+                    startSignal.await();
+                    long start = System.nanoTime();
+                    String transcript = runSession(server.getPort(), script);
+                    durations.recordNanos(System.nanoTime() - start);
+                    bytesReceived.addAndGet(transcript.length());
+                    if (!transcript.contains("Goodbye!")) {
+                        failures.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        startSignal.countDown();
+        while (!finished.await(10, TimeUnit.MILLISECONDS)) {
+            peakSessions.accumulateAndGet(server.getActiveSessionCount(), Math::max);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("%d sessions in %.2f s (%.0f sessions/s), %d failed, peak %d concurrent sessions%n",
+                sessions, seconds, sessions / seconds, failures.get(), peakSessions.get());
+        System.out.println("Session duration: " + durations.summary());
+        System.out.printf("Blog API requests: %d for %d menu actions; transcript bytes received: %d%n",
+                stub.getRequestCount(), sessions * 2 + sessions / 10, bytesReceived.get());
+        System.out.println("Coalesced calls: " + apiClient.getMetrics().getCoalescedCount() + ", " + apiClient.getCacheStats());
+
+        clients.shutdown();
+        server.close();
+        mirror.close();
+        stub.stop();
+        Files.deleteIfExists(mirrorFile);
+    }
+
+    /**
+     * Connects to the chat server, sends the whole script and returns everything the server wrote until it closed the connection.
+     */
+    private static String runSession(int port, String script) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(script.getBytes(StandardCharsets.UTF_8)); // The session reads its answers line by line
+            out.flush();
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package oop.finalexam.t3;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One conversation with the chatbot: the menu loop and its actions, reading the user's input from
+ * a reader and writing to a stream. All state of a conversation lives here, while the {@link ApiClient}
+ * and {@link BlogPostMirror} are thread-safe and shared, so the console ({@link ChatBotApp}) and
+ * every connection of the {@link ChatBotServer} simply run their own ChatSession.
+ * A session is used by one thread at a time.
+ */
+public class ChatSession {
+    private static final int EXIT_CHOICE = 9; // Menu number of the 'Exit' option (always the last one)
+    private static final int SEARCH_RESULTS = 10; // Hits shown per search
+    private static final DateTimeFormatter SYNC_TIME = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final String botName;
+    private final ApiClient apiClient;
+    private final BlogPostMirror mirror; // Local copy of the posts; null if the mirror file cannot be used
+    private List<BlogPost> onlinePosts;  // Without a mirror: all posts, fetched on the first query of this session
+    private BlogPostIndex onlineIndex;   // Without a mirror: query index over onlinePosts
+    private BlogPostSearchIndex onlineSearchIndex; // Without a mirror: search index over onlinePosts
+
+    /**
+     * Constructs a ChatSession.
+     *
+     * @param in The user's input, one answer per line.
+     * @param out Receives the menu and results.
+     * @param err Receives error messages (the same stream as 'out' for remote sessions).
+     * @param botName The name the bot introduces itself with.
+     * @param apiClient The shared client for the blog API.
+     * @param mirror The shared local mirror of the posts, or null to always fetch them online.
+     */
+    public ChatSession(BufferedReader in, PrintStream out, PrintStream err, String botName, ApiClient apiClient, BlogPostMirror mirror) {
+        this.in = in;
+        this.out = out;
+        this.err = err;
+        this.botName = botName;
+        this.apiClient = apiClient;
+        this.mirror = mirror;
+    }
+
+    /**
+     * Greets the user and runs the main chat loop, displaying menu options and handling user choices.
+     * The loop continues until the user chooses to exit (the last option) or the input ends.
+     *
+     * @throws IOException If reading the input fails.
+     */
+    public void run() throws IOException {
+        out.println("Hello! I'm " + botName + ", your blog management assistant.");
+        try {
+            chat();
+        } catch (EOFException e) {
+            out.println("Input closed. Goodbye!"); // E.g., the client disconnected or stdin reached its end
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Manages the main chat loop, displaying menu options and handling user choices.
+     * The loop continues until the user chooses to exit (the last option).
+     */
+    private void chat() throws IOException {
+        int choice;
+        do {
+            displayMenu(); // Show available options to the user
+            out.print("Enter your choice: ");
+            try {
+                choice = Integer.parseInt(readLine().trim()); // Read user input as an integer
+                handleChoice(choice); // Process the user's choice
+            } catch (NumberFormatException e) {
+                // Handle cases where user enters non-numeric input
+                out.println("Invalid input. Please enter a number corresponding to a menu option.");
+                choice = -1; // Set to an invalid choice to re-display the menu
+            }
+            out.println(); // Add a newline for better visual separation between interactions
+        } while (choice != EXIT_CHOICE); // Loop until user selects Exit
+    }
+
+    /**
+     * Displays the main menu options to the console, guiding the user on available actions.
+     */
+    private void displayMenu() {
+        out.println("\n--- Main Menu ---");
+        out.println("1. Create New Blog Post");
+        out.println("2. View All Blog Posts");
+        out.println("3. View Site Statistics");
+        out.println("4. Search Posts");
+        out.println("5. Find Posts by Date Range");
+        out.println("6. Find Posts by Author");
+        out.println("7. Show Newest Posts and Top Authors");
+        out.println("8. Show Client Metrics");
+        out.println(EXIT_CHOICE + ". Exit");
+        out.println("-----------------");
+    }
+
+    /**
+     * Handles the user's menu choice by delegating to the appropriate functionality method.
+     *
+     * @param choice The integer choice made by the user.
+     */
+    private void handleChoice(int choice) throws IOException {
+        switch (choice) {
+            case 1:
+                createNewBlogPost();
+                break;
+            case 2:
+                viewAllBlogPosts();
+                break;
+            case 3:
+                viewSiteStatistics();
+                break;
+            case 4:
+                searchPosts();
+                break;
+            case 5:
+                findPostsByDateRange();
+                break;
+            case 6:
+                findPostsByAuthor();
+                break;
+            case 7:
+                showNewestPostsAndTopAuthors();
+                break;
+            case 8:
+                showClientMetrics();
+                break;
+            case EXIT_CHOICE:
+                out.println("Goodbye! Thanks for chatting with " + botName + ".");
+                break;
+            default:
+                out.println("Invalid choice. Please select an option from 1 to " + EXIT_CHOICE + ".");
+        }
+    }
+
+    /**
+     * Prompts the user for details (title, author, content) for a new blog post
+     * and sends a POST request to the server to create it. It then parses
+     * the server's response to confirm success or report failure.
+     */
+    private void createNewBlogPost() throws IOException {
+        out.println("\n--- Create New Blog Post ---");
+        out.print("Enter post title: ");
+        String title = readLine();
+        out.print("Enter author name: ");
+        String author = readLine();
+        out.print("Enter post content: ");
+        String content = readLine();
+
+        out.println("Attempting to create post...");
+        String rawResponse = apiClient.createBlogPost(title, author, content);
+        out.println("Server Raw Response: " + rawResponse); // Always show raw response for debugging
+
+        try {
+            // Parse the raw JSON response into a generic ApiResponse to check the 'success' flag
+            // The data payload for creation might be a simple message or the created object itself.
+            long parseStart = System.nanoTime();
+            ApiResponse<Object> response = BlogJson.PARSER.fromJson(rawResponse, BlogJson.GENERIC_TYPE);
+            apiClient.getMetrics().recordParse("create (app)", System.nanoTime() - parseStart);
+
+            if (response != null && response.isSuccess()) {
+                out.println("Post created successfully!");
+                if (mirror != null) {
+                    try {
+                        mirror.sync(post -> { }); // The new post is listed and searchable right away
+                    } catch (RuntimeException e) {
+                        mirror.refreshAsync(); // Try again in the background
+                    }
+                } else {
+                    onlinePosts = null; // Refetched by the next query
+                    onlineIndex = null;
+                    onlineSearchIndex = null;
+                }
+                // Optionally, you could parse the 'data' field further if it contains the new post's details
+                // For example: BlogPost createdPost = gson.fromJson(gson.toJson(response.getData()), BlogPost.class);
+                // out.println("New Post ID: " + createdPost.getId());
+            } else {
+                out.println("Failed to create post.");
+                if (response != null && response.getData() != null) {
+                    out.println("Details: " + BlogJson.PRINTER.toJson(response.getData())); // Pretty-printed for readability
+                }
+            }
+        } catch (Exception e) {
+            err.println("Error parsing post creation response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Displays all blog posts using the BlogPost's toString method.
+     * When the local mirror holds posts, they are shown right away from disk and the mirror is refreshed
+     * in the background, so changes appear in the next listing. On the first run the mirror is filled
+     * while the posts are printed as they arrive from the server.
+     */
+    private void viewAllBlogPosts() {
+        out.println("\n--- All Blog Posts ---");
+        if (mirror == null) {
+            fetchAllBlogPosts();
+            return;
+        }
+        if (mirror.isEmpty()) {
+            out.println("Fetching posts...");
+            try {
+                mirror.sync(post -> out.println("\n" + post.toString()));
+            } catch (RuntimeException e) { // ApiException, or UncheckedIOException if the mirror cannot be written
+                err.println("Error retrieving blog posts: " + e.getMessage());
+                return;
+            }
+        } else {
+            List<BlogPost> posts = mirror.getPosts();
+            for (BlogPost post : posts) {
+                out.println("\n" + post.toString());
+            }
+            mirror.refreshAsync(); // Fetches changes for the next listing without delaying this one
+        }
+
+        if (mirror.isEmpty()) {
+            out.println("No blog posts found.");
+            return;
+        }
+        out.println("------------------------------------");
+        out.println("Found " + mirror.size() + " posts (local mirror, " + syncStatus() + ").");
+    }
+
+    /**
+     * Describes when the mirror was last synced, or why the last sync failed.
+     */
+    private String syncStatus() {
+        if (mirror.getLastSyncError() != null) {
+            return "last refresh failed: " + mirror.getLastSyncError();
+        }
+        if (mirror.getLastSyncMillis() == 0) {
+            return "refreshing in the background";
+        }
+        return "synced at " + SYNC_TIME.format(Instant.ofEpochMilli(mirror.getLastSyncMillis())) + ", refreshing in the background";
+    }
+
+    /**
+     * Fetches all existing blog posts from the server via a GET request
+     * and displays them in a readable format using the BlogPost's toString method.
+     * The response is decoded as a stream, so each post is printed as soon as it arrives
+     * instead of after the whole listing has been downloaded and parsed.
+     */
+    private void fetchAllBlogPosts() {
+        out.println("Fetching posts...");
+
+        ApiResponse<Integer> response;
+        try {
+            // Uses the overridden toString() in BlogPost for clean display
+            response = apiClient.streamAllBlogPosts(post -> out.println("\n" + post.toString()));
+        } catch (ApiException e) {
+            err.println("Error retrieving blog posts: " + e.getMessage());
+            if (e.getResponseBody() != null) {
+                out.println("Raw Server Response (for debugging):\n" + e.getResponseBody());
+            }
+            return;
+        }
+
+        if (!response.isSuccess()) {
+            out.println("Failed to retrieve blog posts. Server response might indicate an error or be empty.");
+        } else if (response.getData() == 0) {
+            out.println("No blog posts found.");
+        } else {
+            out.println("------------------------------------");
+            int total = response.getMeta() != null ? response.getMeta().getTotal() : response.getData();
+            out.println("Found " + total + " posts.");
+        }
+    }
+
+    /**
+     * Fetches general site statistics from the server via a GET request
+     * and displays them in a readable format using Gson parsing and the StatsData's toString method.
+     */
+    private void viewSiteStatistics() {
+        out.println("\n--- Site Statistics ---");
+        out.println("Fetching statistics...");
+        String rawResponse = apiClient.getSiteStatistics();
+
+        ApiResponse<ApiResponse.StatsData> response = null;
+
+        try {
+            long parseStart = System.nanoTime();
+            response = BlogJson.PARSER.fromJson(rawResponse, BlogJson.STATS_TYPE); // Cached ApiResponse<StatsData> type
+            apiClient.getMetrics().recordParse("stats (app)", System.nanoTime() - parseStart);
+        } catch (Exception e) {
+            err.println("Error parsing statistics response: " + e.getMessage());
+            out.println("Raw Server Response (for debugging):\n" + rawResponse);
+            return;
+        }
+
+        if (response != null && response.isSuccess() && response.getData() != null) {
+            out.println(response.getData().toString()); // Uses the overridden toString() in StatsData for clean display
+        } else {
+            out.println("Failed to retrieve site statistics. Server response might indicate an error or be empty.");
+            out.println("Raw Server Response (for debugging):\n" + rawResponse);
+        }
+    }
+
+    /**
+     * Searches the titles and content of all posts and shows the best matches, most relevant first.
+     */
+    private void searchPosts() throws IOException {
+        out.println("\n--- Search Posts ---");
+        out.print("Enter search terms: ");
+        String query = readLine();
+
+        BlogPostSearchIndex index;
+        try {
+            if (mirror != null) {
+                if (mirror.isEmpty()) {
+                    mirror.sync(post -> { }); // First run: fill the mirror before searching it
+                }
+                index = mirror.getSearchIndex();
+            } else {
+                if (onlineSearchIndex == null) {
+                    onlineSearchIndex = new BlogPostSearchIndex();
+                    onlineSearchIndex.addAll(onlinePosts());
+                }
+                index = onlineSearchIndex;
+            }
+        } catch (RuntimeException e) {
+            err.println("Error retrieving blog posts: " + ApiException.from("GET", e).getMessage());
+            return;
+        }
+
+        long start = System.nanoTime();
+        BlogPostSearchIndex.Results results = index.search(query, SEARCH_RESULTS);
+        long nanos = System.nanoTime() - start;
+        for (BlogPostSearchIndex.Hit hit : results.getHits()) {
+            out.printf("%nScore: %.2f%n%s%n", hit.getScore(), hit.getPost().toString());
+        }
+        out.println("------------------------------------");
+        out.printf("%d of %d posts match, showing the best %d (search took %.2f ms).%n",
+                results.getTotalMatches(), index.size(), results.getHits().size(), nanos / 1_000_000.0);
+    }
+
+    /**
+     * Lists the posts created (or updated) within a date range, oldest first.
+     * Either bound may be left empty; a date without a time covers the whole day.
+     */
+    private void findPostsByDateRange() throws IOException {
+        out.println("\n--- Find Posts by Date Range ---");
+        out.print("Compare (c)reated or (u)pdated date [c]: ");
+        BlogPostIndex.TimeField field = readLine().trim().toLowerCase(Locale.ROOT).startsWith("u")
+                ? BlogPostIndex.TimeField.UPDATED : BlogPostIndex.TimeField.CREATED;
+        out.print("From (yyyy-MM-dd [HH:mm:ss], empty for no limit): ");
+        String fromText = readLine().trim();
+        out.print("To (yyyy-MM-dd [HH:mm:ss], empty for no limit): ");
+        String toText = readLine().trim();
+
+        long from = fromText.isEmpty() ? Long.MIN_VALUE + 1 : BlogPostIndex.parseTimestamp(fromText);
+        long to = toText.isEmpty() ? Long.MAX_VALUE : BlogPostIndex.parseTimestamp(toText);
+        if (from == Long.MIN_VALUE || to == Long.MIN_VALUE) {
+            out.println("Invalid date. Please use the format yyyy-MM-dd or yyyy-MM-dd HH:mm:ss.");
+            return;
+        }
+        if (toText.length() == 10) {
+            to += 24 * 60 * 60 - 1; // A date alone includes the whole day
+        }
+
+        BlogPostIndex index = queryIndex();
+        if (index != null) {
+            long start = System.nanoTime();
+            List<BlogPost> posts = index.findBetween(field, from, to);
+            printPosts(posts, index.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Lists the posts of one author (case-insensitive), in server order.
+     */
+    private void findPostsByAuthor() throws IOException {
+        out.println("\n--- Find Posts by Author ---");
+        out.print("Enter author name: ");
+        String author = readLine();
+
+        BlogPostIndex index = queryIndex();
+        if (index != null) {
+            long start = System.nanoTime();
+            List<BlogPost> posts = index.findByAuthor(author);
+            printPosts(posts, index.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Shows the N most recently updated posts and the N authors with the most posts.
+     */
+    private void showNewestPostsAndTopAuthors() throws IOException {
+        out.println("\n--- Newest Posts and Top Authors ---");
+        out.print("How many? ");
+        int limit;
+        try {
+            limit = Integer.parseInt(readLine().trim());
+        } catch (NumberFormatException e) {
+            out.println("Invalid number.");
+            return;
+        }
+
+        BlogPostIndex index = queryIndex();
+        if (index == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<BlogPost> newest = index.newest(BlogPostIndex.TimeField.UPDATED, limit);
+        List<Map.Entry<String, Integer>> authors = index.topAuthors(limit);
+        long nanos = System.nanoTime() - start;
+        printPosts(newest, index.size(), nanos);
+        out.println("Top authors:");
+        int rank = 1;
+        for (Map.Entry<String, Integer> author : authors) {
+            out.println("  " + rank++ + ". " + author.getKey() + " (" + author.getValue() + " posts)");
+        }
+    }
+
+    /**
+     * Returns the query index of all posts: the mirror's, or on the first query without a mirror one
+     * built from a single fetch. Reports failures to the user and returns null.
+     */
+    private BlogPostIndex queryIndex() {
+        try {
+            if (mirror != null) {
+                if (mirror.isEmpty()) {
+                    mirror.sync(post -> { }); // First run: fill the mirror before querying it
+                }
+                return mirror.getIndex();
+            }
+            if (onlineIndex == null) {
+                onlineIndex = new BlogPostIndex(onlinePosts());
+            }
+            return onlineIndex;
+        } catch (RuntimeException e) {
+            err.println("Error retrieving blog posts: " + ApiException.from("GET", e).getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns all posts when there is no mirror, fetching them on first use.
+     */
+    private List<BlogPost> onlinePosts() {
+        if (onlinePosts == null) {
+            ApiResponse<List<BlogPost>> response = apiClient.getAllBlogPostsAsync().join();
+            if (!response.isSuccess() || response.getData() == null) {
+                throw ApiException.apiError("Server reported an error while listing posts");
+            }
+            onlinePosts = response.getData();
+        }
+        return onlinePosts;
+    }
+
+    /**
+     * Prints query results with their count and the query time.
+     */
+    private void printPosts(List<BlogPost> posts, int total, long queryNanos) {
+        for (BlogPost post : posts) {
+            out.println("\n" + post.toString());
+        }
+        out.println("------------------------------------");
+        out.printf("Found %d of %d posts (query took %.1f us).%n", posts.size(), total, queryNanos / 1000.0);
+    }
+
+    /**
+     * Displays the client's performance metrics: latency percentiles per endpoint and status,
+     * bytes transferred, errors by kind, JSON parse times and response cache statistics.
+     */
+    private void showClientMetrics() {
+        out.println("\n--- Client Metrics ---");
+        out.print(apiClient.getMetrics().report());
+        out.println(apiClient.getCacheStats());
+        out.println(apiClient.getConcurrencyLimiter());
+        out.println("Hedged requests: " + apiClient.getHedgedRequestCount()
+                + " (won: " + apiClient.getHedgeWinCount() + "), retries: " + apiClient.getRetryCount());
+    }
+
+    /**
+     * Reads one line of input, flushing any pending prompt first.
+     *
+     * @throws EOFException If the input has ended.
+     */
+    private String readLine() throws IOException {
+        out.flush(); // Prompts have no line break, so they are not flushed automatically
+        String line = in.readLine();
+        if (line == null) {
+            throw new EOFException("End of input");
+        }
+        return line;
+    }
+}
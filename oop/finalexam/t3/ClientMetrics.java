@@ -0,0 +1,288 @@
+package oop.finalexam.t3;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Low-overhead instrumentation for {@link ApiClient}: a {@link LatencyHistogram} per endpoint and
+ * response status, bytes received and sent, failed calls by {@link ApiException.Kind}, calls that were
+ * coalesced into an identical in-flight call, and JSON parse times reported by the application. All recording methods are lock-free and thread-safe.
+ * The metrics can be read directly, printed with {@link #report()}, or through JMX after {@link #registerMBean()}.
+ */
+public class ClientMetrics implements ClientMetricsMXBean {
+    private static final String OBJECT_NAME = "oop.finalexam.t3:type=ClientMetrics";
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();   // "GET ?api=blogs 200" -> histogram
+    private final Map<String, LatencyHistogram> parseTimes = new ConcurrentHashMap<>();  // "blogs" -> histogram
+    private final Map<ApiException.Kind, LongAdder> errors = new EnumMap<>(ApiException.Kind.class);
+    private final Map<String, LongAdder> coalesced = new ConcurrentHashMap<>();  // "GET ?api=stats" -> joined calls
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+
+    /**
+     * Constructs an empty ClientMetrics.
+     */
+    public ClientMetrics() {
+        for (ApiException.Kind kind : ApiException.Kind.values()) {
+            errors.put(kind, new LongAdder()); // Filled once, so later reads need no synchronization
+        }
+    }
+
+    /**
+     * Records the latency of one HTTP exchange.
+     *
+     * @param method The HTTP method.
+     * @param endpoint The API endpoint; only its first query parameter is used, to keep the number of series small.
+     * @param status The HTTP status code.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void recordLatency(String method, String endpoint, int status, long nanos) {
+        String key = method + " " + endpointKey(endpoint) + " " + status;
+        latencies.computeIfAbsent(key, k -> new LatencyHistogram()).recordNanos(nanos);
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param kind The category of the failure.
+     */
+    public void recordError(ApiException.Kind kind) {
+        errors.get(kind).increment();
+    }
+
+    /**
+     * Records a call that joined an identical call already in flight instead of sending its own request.
+     *
+     * @param call The coalescing key (e.g., "GET ?api=stats"); only its first query parameter is used.
+     */
+    public void recordCoalesced(String call) {
+        coalesced.computeIfAbsent(endpointKey(call), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Records the time spent turning a response body into objects.
+     *
+     * @param responseType A short name of the parsed response (e.g., "blogs", "stats").
+     * @param nanos The parse time in nanoseconds.
+     */
+    public void recordParse(String responseType, long nanos) {
+        parseTimes.computeIfAbsent(responseType, k -> new LatencyHistogram()).recordNanos(nanos);
+    }
+
+    /**
+     * Records the size of a sent request body.
+     *
+     * @param bytes The number of bytes sent.
+     */
+    public void recordBytesSent(long bytes) {
+        if (bytes > 0) {
+            bytesSent.add(bytes);
+        }
+    }
+
+    /**
+     * Wraps a body handler so that every received body byte (as transferred, before decompression) is counted.
+     *
+     * @param delegate The handler that decodes the body.
+     * @param <T> The body type.
+     * @return The counting handler.
+     */
+    public <T> HttpResponse.BodyHandler<T> countingBytes(HttpResponse.BodyHandler<T> delegate) {
+        return responseInfo -> new CountingSubscriber<>(delegate.apply(responseInfo), bytesReceived);
+    }
+
+    // --- ClientMetricsMXBean ---
+
+    @Override
+    public String[] getLatencySummaries() {
+        return summaries(latencies);
+    }
+
+    @Override
+    public long getRequestCount() {
+        long count = 0;
+        for (LatencyHistogram histogram : latencies.values()) {
+            count += histogram.getCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<ApiException.Kind, LongAdder> entry : errors.entrySet()) {
+            counts.put(entry.getKey().name(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        long count = 0;
+        for (LongAdder counter : coalesced.values()) {
+            count += counter.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, Long> getCoalescedCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : coalesced.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public String[] getParseSummaries() {
+        return summaries(parseTimes);
+    }
+
+    @Override
+    public void reset() {
+        latencies.clear();
+        parseTimes.clear();
+        coalesced.clear();
+        for (LongAdder counter : errors.values()) {
+            counter.reset();
+        }
+        bytesReceived.reset();
+        bytesSent.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server so they can be inspected with JConsole or VisualVM.
+     * Failures (e.g., a name already taken by another client in the same JVM) are reported on stderr.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register client metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Provides a user-friendly multi-line report of all metrics.
+     * @return A formatted string displaying the metrics.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append("Requests by endpoint and status:\n");
+        String[] lines = getLatencySummaries();
+        if (lines.length == 0) {
+            report.append("  (no requests yet)\n");
+        }
+        for (String line : lines) {
+            report.append("  ").append(line).append('\n');
+        }
+        report.append("Bytes received: ").append(getBytesReceived()).append(", bytes sent: ").append(getBytesSent()).append('\n');
+        report.append("Errors: ");
+        boolean any = false;
+        for (Map.Entry<String, Long> entry : getErrorCounts().entrySet()) {
+            if (entry.getValue() > 0) {
+                report.append(any ? ", " : "").append(entry.getKey()).append('=').append(entry.getValue());
+                any = true;
+            }
+        }
+        report.append(any ? "" : "none").append('\n');
+        report.append("Coalesced calls (served by an identical in-flight call): ").append(getCoalescedCount());
+        if (!coalesced.isEmpty()) {
+            report.append(' ').append(getCoalescedCounts());
+        }
+        report.append('\n');
+        report.append("JSON parse times:\n");
+        for (String line : getParseSummaries()) {
+            report.append("  ").append(line).append('\n');
+        }
+        return report.toString();
+    }
+
+    private static String[] summaries(Map<String, LatencyHistogram> histograms) {
+        Map<String, LatencyHistogram> sorted = new TreeMap<>(histograms);
+        String[] lines = new String[sorted.size()];
+        int i = 0;
+        for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+            lines[i++] = entry.getKey() + ": " + entry.getValue().summary();
+        }
+        return lines;
+    }
+
+    /**
+     * Reduces "?api=blogs&limit=10&offset=20" to "?api=blogs".
+     */
+    static String endpointKey(String endpoint) {
+        int ampersand = endpoint.indexOf('&');
+        return ampersand > 0 ? endpoint.substring(0, ampersand) : endpoint;
+    }
+
+    /**
+     * A body subscriber that counts the bytes passing through to its delegate.
+     */
+    private static final class CountingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final LongAdder counter;
+
+        CountingSubscriber(HttpResponse.BodySubscriber<T> delegate, LongAdder counter) {
+            this.delegate = delegate;
+            this.counter = counter;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            long bytes = 0;
+            for (ByteBuffer buffer : item) {
+                bytes += buffer.remaining();
+            }
+            counter.add(bytes);
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            delegate.onComplete();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package oop.finalexam.t3;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ClientMetrics}, registered as {@code oop.finalexam.t3:type=ClientMetrics}.
+ */
+public interface ClientMetricsMXBean {
+
+    /**
+     * @return One line per endpoint and status with count, p50, p90, p99 and max latency.
+     */
+    String[] getLatencySummaries();
+
+    long getRequestCount();
+
+    long getBytesReceived();
+
+    long getBytesSent();
+
+    /**
+     * @return The number of failed calls per {@link ApiException.Kind}.
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * @return The number of calls that shared an identical in-flight call instead of sending their own request.
+     */
+    long getCoalescedCount();
+
+    /**
+     * @return The number of coalesced calls per call key (e.g., "GET ?api=stats").
+     */
+    Map<String, Long> getCoalescedCounts();
+
+    /**
+     * @return The JSON parse time summary per response type.
+     */
+    String[] getParseSummaries();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
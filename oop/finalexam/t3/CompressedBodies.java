@@ -0,0 +1,304 @@
+package oop.finalexam.t3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Body handlers and publishers for HTTP content compression.
+ * {@link ApiClient} advertises {@link #ACCEPT_ENCODING} on every request; the handlers here
+ * transparently undo a gzip or deflate {@code Content-Encoding} on the response, so callers see
+ * the same plain text as before. Uncompressed responses pass through unchanged.
+ * Request bodies of at least a configured size are gzip-compressed, including bodies streamed from files.
+ */
+final class CompressedBodies {
+    /** Value of the Accept-Encoding request header. */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private CompressedBodies() {
+    }
+
+    /**
+     * A handler that decodes the body into a String, decompressing it first if needed.
+     * The compressed bytes are collected and then decompressed in one streaming pass into the decoder.
+     *
+     * @return The body handler.
+     */
+    static HttpResponse.BodyHandler<String> ofString() {
+        return responseInfo -> {
+            String encoding = contentEncoding(responseInfo.headers());
+            Charset charset = charsetOf(responseInfo.headers());
+            if (encoding.equals("identity")) {
+                return HttpResponse.BodySubscribers.ofString(charset);
+            }
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+                try (InputStream in = decompressing(new ByteArrayInputStream(bytes), encoding)) {
+                    return new String(in.readAllBytes(), charset);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not decompress " + encoding + " response", e);
+                }
+            });
+        };
+    }
+
+    /**
+     * A handler that exposes the body as an InputStream, decompressing it incrementally while it is read.
+     *
+     * @return The body handler.
+     */
+    static HttpResponse.BodyHandler<InputStream> ofInputStream() {
+        return responseInfo -> {
+            String encoding = contentEncoding(responseInfo.headers());
+            if (encoding.equals("identity")) {
+                return HttpResponse.BodySubscribers.ofInputStream();
+            }
+            // The decompressor is created lazily: its constructor reads the stream header, which would
+            // block the HttpClient thread that completes this mapping before any data has arrived.
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                    raw -> new LazyDecompressingStream(raw, encoding));
+        };
+    }
+
+    /**
+     * Creates a publisher for a request body, gzip-compressing it when it is at least {@code threshold} bytes long.
+     *
+     * @param builder The request builder; a Content-Encoding header is added when the body is compressed.
+     * @param body The request body.
+     * @param threshold The minimum size in bytes for compression, or 0 to never compress.
+     * @return The publisher for the (possibly compressed) body.
+     */
+    static HttpRequest.BodyPublisher publisher(HttpRequest.Builder builder, String body, int threshold) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (threshold <= 0 || bytes.length < threshold) {
+            return HttpRequest.BodyPublishers.ofByteArray(bytes);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen for in-memory streams
+        }
+        builder.header("Content-Encoding", "gzip");
+        return HttpRequest.BodyPublishers.ofByteArray(compressed.toByteArray());
+    }
+
+    /**
+     * Creates a publisher for a request body built by a {@link JsonBodyWriter}, gzip-compressing it when it is
+     * at least {@code threshold} bytes long. The writer's buffer is compressed directly, without an extra copy.
+     * The publisher does not refer to the writer, which may be released afterwards.
+     *
+     * @param builder The request builder; a Content-Encoding header is added when the body is compressed.
+     * @param body The writer holding the request body.
+     * @param threshold The minimum size in bytes for compression, or 0 to never compress.
+     * @return The publisher for the (possibly compressed) body.
+     */
+    static HttpRequest.BodyPublisher publisher(HttpRequest.Builder builder, JsonBodyWriter body, int threshold) {
+        if (threshold <= 0 || body.size() < threshold) {
+            return HttpRequest.BodyPublishers.ofByteArray(body.toByteArray());
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.size() / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            body.writeTo(gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen for in-memory streams
+        }
+        builder.header("Content-Encoding", "gzip");
+        return HttpRequest.BodyPublishers.ofByteArray(compressed.toByteArray());
+    }
+
+    /**
+     * Creates a publisher that streams a request body of unknown length (sent with chunked transfer encoding
+     * on HTTP/1.1), gzip-compressing it on the fly when it is expected to be at least {@code threshold} bytes long.
+     *
+     * @param builder The request builder; a Content-Encoding header is added when the body is compressed.
+     * @param body Supplies a fresh stream of the body for each transmission.
+     * @param expectedSize The approximate size of the body in bytes, used to decide on compression.
+     * @param threshold The minimum size in bytes for compression, or 0 to never compress.
+     * @return The publisher for the (possibly compressed) body.
+     */
+    static HttpRequest.BodyPublisher publisher(HttpRequest.Builder builder, Supplier<InputStream> body,
+                                               long expectedSize, int threshold) {
+        if (threshold <= 0 || expectedSize < threshold) {
+            return HttpRequest.BodyPublishers.ofInputStream(body);
+        }
+        builder.header("Content-Encoding", "gzip");
+        return HttpRequest.BodyPublishers.ofInputStream(() -> new CompressingStream(body.get()));
+    }
+
+    /**
+     * Wraps a stream in the decompressor for the given Content-Encoding.
+     * "deflate" is accepted both zlib-wrapped (as the HTTP specification requires) and raw, as some servers send it.
+     * Closing the returned stream releases the decompressor's native memory.
+     */
+    static InputStream decompressing(InputStream in, String encoding) throws IOException {
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, 8192);
+            case "deflate":
+                PushbackInputStream peekable = new PushbackInputStream(in, 2);
+                byte[] header = peekable.readNBytes(2);
+                peekable.unread(header);
+                boolean zlib = header.length == 2 && (header[0] & 0x0F) == 8
+                        && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+                Inflater inflater = new Inflater(!zlib);
+                return new InflaterInputStream(peekable, inflater, 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end(); // InflaterInputStream only ends inflaters it created itself
+                        }
+                    }
+                };
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + encoding);
+        }
+    }
+
+    private static String contentEncoding(HttpHeaders headers) {
+        return headers.firstValue("Content-Encoding").map(value -> value.trim().toLowerCase(Locale.ROOT)).orElse("identity");
+    }
+
+    /**
+     * Reads the charset parameter of the Content-Type header, defaulting to UTF-8.
+     */
+    private static Charset charsetOf(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (index >= 0) {
+            String name = contentType.substring(index + 8).split(";")[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                // Fall through to the JSON default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * An InputStream yielding the gzip compression of another stream, compressing one chunk per refill.
+     * Memory use is bounded by the chunk size, whatever the length of the source.
+     */
+    private static final class CompressingStream extends InputStream {
+        private final InputStream source;
+        private final byte[] chunk = new byte[8192];
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(8192);
+        private final GZIPOutputStream gzip;
+        private byte[] pending = new byte[0];
+        private int position;
+        private boolean finished;
+
+        CompressingStream(InputStream source) {
+            this.source = source;
+            try {
+                this.gzip = new GZIPOutputStream(compressed, 8192);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Cannot happen for in-memory streams
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == pending.length) {
+                if (finished) {
+                    return -1;
+                }
+                int read = source.read(chunk);
+                if (read < 0) {
+                    gzip.close(); // Flushes the remaining data, writes the trailer and frees the native deflater
+                    finished = true;
+                } else {
+                    gzip.write(chunk, 0, read); // May produce no output yet; the deflater buffers
+                }
+                pending = compressed.toByteArray();
+                compressed.reset();
+                position = 0;
+            }
+            int count = Math.min(length, pending.length - position);
+            System.arraycopy(pending, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Closes the source and frees the deflater's native memory right away rather than when the stream is
+         * garbage-collected, e.g. if the body is abandoned before its end. Closing twice is harmless.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                gzip.close();
+            } finally {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * An InputStream that creates its decompressor on the first read.
+     */
+    private static final class LazyDecompressingStream extends InputStream {
+        private final InputStream raw;
+        private final String encoding;
+        private InputStream decoded;
+
+        LazyDecompressingStream(InputStream raw, String encoding) {
+            this.raw = raw;
+            this.encoding = encoding;
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) {
+                decoded = decompressing(raw, encoding);
+            }
+            return decoded;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoded().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return decoded().read(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoded != null) {
+                decoded.close();
+            } else {
+                raw.close();
+            }
+        }
+    }
+}
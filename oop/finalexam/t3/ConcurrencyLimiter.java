@@ -0,0 +1,389 @@
+package oop.finalexam.t3;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An adaptive limit on the number of requests {@link ApiClient} has in flight at once, so that a busy
+ * server is neither underused nor flooded. The limit follows the AIMD scheme of TCP congestion control:
+ * <ul>
+ *     <li>Additive increase: every successful request that was sent while at least half the limit was
+ *     in use raises the limit by 1/limit, i.e., by about one per round trip.</li>
+ *     <li>Multiplicative decrease: an overload signal lowers the limit to {@link #BACKOFF_RATIO} of its
+ *     value. Signals are HTTP 429/502/503/504, timeouts, refused connections, and round trips more than
+ *     twice as slow as the fastest recent one of the same kind of request (the server is queueing requests).
+ *     The caller names the kind; it should group requests with comparable round trips, such as the method and
+ *     the endpoint with its parameter names (a page of posts is not comparable with the full listing).
+ *     Only requests sent after the previous decrease can lower the limit again, so a burst of failures
+ *     from one overloaded moment counts once.</li>
+ * </ul>
+ * Requests beyond the limit wait in a FIFO queue without occupying a thread. When the queue is full, or a
+ * request has waited longer than the queue timeout, it fails at once with {@link ApiException.Kind#OVERLOADED}
+ * instead of adding to the server's load.
+ * <p>
+ * Every {@link #acquire(String)} must be matched by exactly one release of its {@link Permit}.
+ * The limiter is thread-safe.
+ */
+public class ConcurrencyLimiter {
+    private static final double BACKOFF_RATIO = 0.9;       // Multiplicative decrease factor
+    private static final double RTT_TOLERANCE = 2.0;       // Round trips this many times the baseline signal queueing
+    private static final long RTT_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(5); // Ignore jitter of fast local servers
+    private static final int RTT_WINDOW = 500;             // Samples per kind of request after which the baseline may drift up
+    private static final double RTT_DRIFT = 1.05;          // How far the baseline may rise per window
+    private static final int DEFAULT_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_MAX_LIMIT = 200;
+    private static final int DEFAULT_MAX_QUEUED = 1000;
+    private static final Duration DEFAULT_QUEUE_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * The right to send one request; release it exactly once when the exchange is over.
+     */
+    public final class Permit {
+        private final String rttKey;
+        private final long acquiredNanos;
+        private final boolean limitInUse;  // At least half the limit was in flight when this permit was granted
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String rttKey, long acquiredNanos, boolean limitInUse) {
+            this.rttKey = rttKey;
+            this.acquiredNanos = acquiredNanos;
+            this.limitInUse = limitInUse;
+        }
+
+        /**
+         * Releases the permit after the server answered normally.
+         *
+         * @param rttNanos The round-trip time of the exchange.
+         */
+        public void onSuccess(long rttNanos) {
+            if (released.compareAndSet(false, true)) {
+                release(this, rttNanos, false);
+            }
+        }
+
+        /**
+         * Releases the permit after a sign of overload (429, 503, timeout, refused connection).
+         */
+        public void onDropped() {
+            if (released.compareAndSet(false, true)) {
+                release(this, -1, true);
+            }
+        }
+
+        /**
+         * Releases the permit without adjusting the limit, e.g., when the request was cancelled or failed for
+         * a reason unrelated to load.
+         */
+        public void onIgnored() {
+            if (released.compareAndSet(false, true)) {
+                release(this, -1, false);
+            }
+        }
+    }
+
+    /**
+     * The fastest round trip of one kind of request. It falls immediately with every faster sample, but rises only
+     * slowly (by at most {@link #RTT_DRIFT} per {@link #RTT_WINDOW} samples) towards slower windows, so that
+     * a server that is permanently slower (e.g., because a listing grew) is eventually accepted, while a
+     * server that is queueing requests keeps being recognized as congested.
+     */
+    private static final class RttBaseline {
+        long baseline = Long.MAX_VALUE;
+        long windowMin = Long.MAX_VALUE;
+        int samples;
+
+        /**
+         * Records a sample and reports whether it is much slower than the baseline.
+         */
+        boolean isCongested(long rttNanos) {
+            boolean congested = baseline != Long.MAX_VALUE && rttNanos > baseline * RTT_TOLERANCE + RTT_SLACK_NANOS;
+            baseline = Math.min(baseline, rttNanos);
+            windowMin = Math.min(windowMin, rttNanos);
+            if (++samples == RTT_WINDOW) {
+                baseline = Math.max(baseline, Math.min(windowMin, (long) (baseline * RTT_DRIFT)));
+                windowMin = Long.MAX_VALUE;
+                samples = 0;
+            }
+            return congested;
+        }
+    }
+
+    /**
+     * A request waiting for a permit.
+     */
+    private static final class Waiter {
+        final String rttKey;
+        final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+        Waiter(String rttKey) {
+            this.rttKey = rttKey;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();          // Guarded by 'lock'
+    private final Map<String, RttBaseline> baselines = new HashMap<>();   // Guarded by 'lock'
+    private double limit;              // Guarded by 'lock'
+    private int inFlight;              // Guarded by 'lock'
+    private long lastDecreaseNanos;    // Guarded by 'lock'
+    private final int minLimit;
+    private volatile int maxLimit;
+    private volatile int maxQueued;
+    private volatile Duration queueTimeout;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong decreases = new AtomicLong();
+
+    /**
+     * Constructs a ConcurrencyLimiter.
+     *
+     * @param initialLimit The limit to start with.
+     * @param minLimit The lowest the limit may fall (at least 1).
+     * @param maxLimit The highest the limit may rise.
+     * @param maxQueued The maximum number of requests waiting for a permit; further requests are rejected.
+     * @param queueTimeout How long a request may wait for a permit before it is rejected.
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueued, Duration queueTimeout) {
+        if (minLimit < 1 || maxLimit < minLimit || maxQueued < 0) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= maxLimit and maxQueued >= 0");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * @return The limiter used by default in {@link ApiClient}: starts at 20 concurrent requests, adapts between
+     *         1 and 200, and queues up to 1000 requests for at most 5 seconds.
+     */
+    public static ConcurrencyLimiter withDefaults() {
+        return new ConcurrencyLimiter(DEFAULT_INITIAL_LIMIT, 1, DEFAULT_MAX_LIMIT, DEFAULT_MAX_QUEUED, DEFAULT_QUEUE_TIMEOUT);
+    }
+
+    /**
+     * @return A limiter that never limits, e.g., to compare against the adaptive one in a load test.
+     */
+    public static ConcurrencyLimiter unlimited() {
+        return new ConcurrencyLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, Duration.ZERO);
+    }
+
+    /**
+     * Applies the limiter settings of a configuration snapshot; missing keys restore the defaults:
+     * <pre>
+     * MAX_CONCURRENT_REQUESTS=200     # Upper bound of the adaptive limit
+     * REQUEST_QUEUE_SIZE=1000         # Requests that may wait for a permit; 0 rejects at once when the limit is reached
+     * REQUEST_QUEUE_TIMEOUT_MS=5000   # How long a request may wait for a permit
+     * </pre>
+     *
+     * @param settings The configuration snapshot.
+     */
+    public void configure(ConfigLoader.Settings settings) {
+        maxLimit = Math.max(minLimit, settings.getInt("MAX_CONCURRENT_REQUESTS", DEFAULT_MAX_LIMIT));
+        maxQueued = Math.max(0, settings.getInt("REQUEST_QUEUE_SIZE", DEFAULT_MAX_QUEUED));
+        queueTimeout = settings.getDuration("REQUEST_QUEUE_TIMEOUT_MS", TimeUnit.MILLISECONDS, DEFAULT_QUEUE_TIMEOUT);
+        lock.lock();
+        try {
+            limit = Math.min(limit, maxLimit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requests a permit to send one request.
+     *
+     * @param rttKey The kind of request (e.g., "GET ?api=blogs&limit&offset"); round trips are only compared
+     *               with those of the same kind.
+     * @return A future completed with the permit as soon as the limit allows, or failed with an
+     *         {@link ApiException} of kind OVERLOADED if the queue is full or the wait times out.
+     *         Cancelling the future while it waits gives up the place in the queue.
+     */
+    public CompletableFuture<Permit> acquire(String rttKey) {
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(rttKey, System.nanoTime(), inFlight * 2 >= limit));
+            }
+            if (queue.size() >= maxQueued) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(ApiException.overloaded(
+                        "Too many requests in progress (" + inFlight + " in flight, " + queue.size() + " waiting)"));
+            }
+            waiter = new Waiter(rttKey);
+            queue.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+        waiter.future.whenComplete((permit, error) -> {
+            if (error instanceof CancellationException) {
+                dequeue(waiter); // Frees its place in the queue right away instead of when it reaches the head
+            }
+        });
+        long timeoutMillis = queueTimeout.toMillis();
+        CompletableFuture.delayedExecutor(timeoutMillis, TimeUnit.MILLISECONDS).execute(() -> expire(waiter, timeoutMillis));
+        return waiter.future;
+    }
+
+    /**
+     * Takes a permit only if one is free right away, for optional requests such as hedges, which should
+     * never wait behind (or add to the load of) required ones.
+     *
+     * @param rttKey The kind of request, as for {@link #acquire(String)}.
+     * @return The permit, or null if the limit is reached or other requests are waiting.
+     */
+    public Permit tryAcquire(String rttKey) {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && queue.isEmpty()) {
+                inFlight++;
+                return new Permit(rttKey, System.nanoTime(), inFlight * 2 >= limit);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dequeue(Waiter waiter) {
+        lock.lock();
+        try {
+            queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects a waiter that is still queued after the queue timeout.
+     */
+    private void expire(Waiter waiter, long timeoutMillis) {
+        lock.lock();
+        try {
+            if (!queue.remove(waiter) || waiter.future.isDone()) {
+                return; // Already granted a permit, or cancelled
+            }
+        } finally {
+            lock.unlock();
+        }
+        rejected.incrementAndGet();
+        waiter.future.completeExceptionally(ApiException.overloaded(
+                "No capacity for the request within " + timeoutMillis + " ms"));
+    }
+
+    /**
+     * Returns a permit, adapts the limit and grants permits to waiting requests while the limit allows.
+     * The waiters are completed after the lock is released, because completing them runs their requests.
+     */
+    private void release(Permit permit, long rttNanos, boolean dropped) {
+        List<Permit> granted = new ArrayList<>();
+        List<Waiter> grantedTo = new ArrayList<>();
+        lock.lock();
+        try {
+            inFlight--;
+            boolean congested = dropped
+                    || rttNanos >= 0 && baselines.computeIfAbsent(permit.rttKey, k -> new RttBaseline()).isCongested(rttNanos);
+            if (congested && permit.acquiredNanos - lastDecreaseNanos > 0 && limit > minLimit) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecreaseNanos = System.nanoTime();
+                decreases.incrementAndGet();
+            } else if (!congested && rttNanos >= 0 && permit.limitInUse) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Waiter waiter = queue.poll();
+                if (waiter.future.isDone()) {
+                    continue; // Cancelled by the caller while waiting
+                }
+                inFlight++;
+                granted.add(new Permit(waiter.rttKey, System.nanoTime(), inFlight * 2 >= limit));
+                grantedTo.add(waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < granted.size(); i++) {
+            if (!grantedTo.get(i).future.complete(granted.get(i))) {
+                granted.get(i).onIgnored(); // The caller gave up (cancelled) in the meantime
+            }
+        }
+    }
+
+    // --- Getters ---
+
+    /**
+     * @return The current number of requests allowed in flight.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests currently in flight.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests waiting for a permit.
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests rejected because the queue was full or the wait timed out.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return The number of times the limit was lowered because of overload.
+     */
+    public long getDecreaseCount() {
+        return decreases.get();
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("Concurrency limit: %s (%d in flight, %d queued), %d rejected, lowered %d times",
+                    limit >= Integer.MAX_VALUE ? "unlimited" : String.valueOf((int) limit),
+                    inFlight, queue.size(), rejected.get(), decreases.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
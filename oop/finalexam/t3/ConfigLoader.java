@@ -1,34 +1,216 @@
 package oop.finalexam.t3;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Utility class to load configuration properties from a text file named 'config.txt'.
  * The configuration file should contain key-value pairs (e.g., KEY=VALUE).
+ * <p>
+ * The properties are held in an immutable {@link Settings} snapshot. Reading a property never locks:
+ * it is a lookup in the current snapshot. After {@link #startWatching()}, a background thread watches
+ * the file with a {@link WatchService}; when the file changes, it is read again and the new snapshot
+ * replaces the old one in a single atomic step, so a reader sees either all old or all new values.
+ * Registered {@link ChangeListener}s are then told about the change, e.g., so that {@link ApiClient}
+ * can apply new timeouts without a restart (see {@link ApiClient#applyConfig(Settings)}).
+ * If the changed file cannot be read, the previous settings stay in effect.
  */
-public class ConfigLoader {
+public class ConfigLoader implements AutoCloseable {
     private static final String CONFIG_FILE_NAME = "config.txt";
-    private final Map<String, String> properties = new HashMap<>();
+    private static final long SETTLE_MILLIS = 100; // Editors often write a file in several steps; wait for them to finish
+
+    /**
+     * Receives new settings after the configuration file has changed.
+     */
+    public interface ChangeListener {
+        /**
+         * Called on the watcher thread after the new settings have been swapped in.
+         *
+         * @param previous The settings before the change.
+         * @param current The settings now in effect.
+         */
+        void configChanged(Settings previous, Settings current);
+    }
+
+    /**
+     * An immutable snapshot of the configuration, with typed accessors.
+     * Missing or invalid values fall back to the given defaults; invalid values are reported on stderr.
+     */
+    public static final class Settings {
+        private final Map<String, String> properties;
+
+        Settings(Map<String, String> properties) {
+            this.properties = Map.copyOf(properties);
+        }
+
+        /**
+         * @param key The key of the property (e.g., "SERVER_URL").
+         * @return The value, or null if the key is not set.
+         */
+        public String getProperty(String key) {
+            return properties.get(key);
+        }
+
+        /**
+         * @return The value, or the default if the key is not set or blank.
+         */
+        public String getString(String key, String defaultValue) {
+            String value = properties.get(key);
+            return value != null && !value.isBlank() ? value : defaultValue;
+        }
+
+        /**
+         * @return The value as an int, or the default if the key is not set or not a number.
+         */
+        public int getInt(String key, int defaultValue) {
+            long value = getLong(key, defaultValue);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                System.err.println("Ignoring out-of-range " + key + " '" + value + "', using " + defaultValue + ".");
+                return defaultValue;
+            }
+            return (int) value;
+        }
+
+        /**
+         * @return The value as a long, or the default if the key is not set or not a number.
+         */
+        public long getLong(String key, long defaultValue) {
+            String value = properties.get(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid " + key + " '" + value + "', using " + defaultValue + ".");
+                return defaultValue;
+            }
+        }
+
+        /**
+         * @return The value as a boolean ("true"/"false", "yes"/"no", "on"/"off", "1"/"0"), or the default
+         *         if the key is not set or not a boolean.
+         */
+        public boolean getBoolean(String key, boolean defaultValue) {
+            String value = properties.get(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch (value.trim().toLowerCase()) {
+                case "true": case "yes": case "on": case "1":
+                    return true;
+                case "false": case "no": case "off": case "0":
+                    return false;
+                default:
+                    System.err.println("Ignoring invalid " + key + " '" + value + "', using " + defaultValue + ".");
+                    return defaultValue;
+            }
+        }
+
+        /**
+         * Reads a duration given as a number in the key's unit (e.g., REQUEST_TIMEOUT_MS=30000).
+         *
+         * @param key The key of the property.
+         * @param unit The unit of the number in the file.
+         * @param defaultValue The duration to use if the key is not set or not a number.
+         * @return The duration.
+         */
+        public Duration getDuration(String key, TimeUnit unit, Duration defaultValue) {
+            String value = properties.get(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Duration.ofNanos(unit.toNanos(Long.parseLong(value.trim())));
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid " + key + " '" + value + "', using " + defaultValue.toMillis() + " ms.");
+                return defaultValue;
+            }
+        }
+
+        /**
+         * @return The keys whose values differ between this snapshot and the other one (including added and removed keys), sorted.
+         */
+        public Set<String> changedKeys(Settings other) {
+            Set<String> changed = new TreeSet<>();
+            for (String key : properties.keySet()) {
+                if (!Objects.equals(properties.get(key), other.properties.get(key))) {
+                    changed.add(key);
+                }
+            }
+            for (String key : other.properties.keySet()) {
+                if (!properties.containsKey(key)) {
+                    changed.add(key);
+                }
+            }
+            return changed;
+        }
+    }
+
+    private final Path file;
+    private final AtomicReference<Settings> settings = new AtomicReference<>(new Settings(Map.of()));
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private WatchService watchService;
 
     /**
      * Constructs a ConfigLoader and attempts to load properties from the default config file.
      * If the file is not found or an error occurs, appropriate messages are printed to stderr.
      */
     public ConfigLoader() {
+        this(Path.of(CONFIG_FILE_NAME));
+    }
+
+    /**
+     * Constructs a ConfigLoader for the given file and attempts to load its properties.
+     * If the file is not found or an error occurs, appropriate messages are printed to stderr.
+     *
+     * @param file The configuration file.
+     */
+    public ConfigLoader(Path file) {
+        this.file = file;
         loadConfig();
     }
 
     /**
-     * Loads configuration properties from the 'config.txt' file.
+     * Loads configuration properties from the configuration file.
+     */
+    private void loadConfig() {
+        try {
+            settings.set(new Settings(readProperties()));
+            System.out.println("Configuration loaded successfully from " + file);
+        } catch (IOException e) {
+            System.err.println("Error loading configuration from " + file + ": " + e.getMessage());
+            System.err.println("Please ensure '" + file + "' exists in the project root directory " +
+                    "(e.g., next to your 'src' folder) and is readable.");
+        }
+    }
+
+    /**
+     * Reads the configuration file.
      * It reads each line, trims whitespace, ignores empty lines and comments (starting with '#'),
      * and parses key-value pairs separated by an '=' sign.
      */
-    private void loadConfig() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(CONFIG_FILE_NAME))) {
+    private Map<String, String> readProperties() throws IOException {
+        Map<String, String> properties = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
@@ -42,22 +224,143 @@ public class ConfigLoader {
                     properties.put(key, value);
                 }
             }
-            System.out.println("Configuration loaded successfully from " + CONFIG_FILE_NAME);
-        } catch (IOException e) {
-            System.err.println("Error loading configuration from " + CONFIG_FILE_NAME + ": " + e.getMessage());
-            System.err.println("Please ensure '" + CONFIG_FILE_NAME + "' exists in the project root directory " +
-                    "(e.g., next to your 'src' folder) and is readable.");
         }
+        return properties;
     }
 
     /**
-     * Retrieves a configuration property by its key.
+     * Retrieves a configuration property by its key from the current settings.
      *
      * @param key The key of the property to retrieve (e.g., "SERVER_URL", "BOT_NAME").
      * @return The value of the property as a String, or null if the key is not found in the configuration.
      */
     public String getProperty(String key) {
-        return properties.get(key);
+        return settings.get().getProperty(key);
+    }
+
+    /**
+     * @return The settings currently in effect; the snapshot never changes, later reloads replace it.
+     */
+    public Settings getSettings() {
+        return settings.get();
+    }
+
+    /**
+     * @return The configuration file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Registers a listener that is called whenever reloading the file changed at least one property.
+     *
+     * @param listener The listener.
+     */
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads the configuration file again. If any property changed, the new settings replace the current
+     * ones atomically and the listeners are notified; otherwise nothing happens.
+     *
+     * @return The keys that changed (empty if none did or the file could not be read).
+     */
+    public synchronized Set<String> reload() {
+        Settings current;
+        try {
+            current = new Settings(readProperties());
+        } catch (IOException e) {
+            System.err.println("Error reloading configuration from " + file + ", keeping the previous settings: " + e.getMessage());
+            return Set.of();
+        }
+        Settings previous = settings.get();
+        Set<String> changed = previous.changedKeys(current);
+        if (changed.isEmpty()) {
+            return changed; // Touched or rewritten with the same content
+        }
+        settings.set(current);
+        System.out.println("Configuration reloaded from " + file + " (changed: " + String.join(", ", changed) + ")");
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.configChanged(previous, current);
+            } catch (RuntimeException e) {
+                System.err.println("Error applying the new configuration: " + e);
+            }
+        }
+        return changed;
     }
-}
 
+    /**
+     * Starts watching the configuration file on a background daemon thread and reloads it whenever it
+     * is modified or replaced (many editors save by writing a new file and renaming it). Deleting the
+     * file keeps the current settings. Calling this again has no effect.
+     *
+     * @return This loader, for chaining.
+     * @throws IOException If the file's directory cannot be watched.
+     */
+    public synchronized ConfigLoader startWatching() throws IOException {
+        if (watchService != null) {
+            return this;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService watcher = watchService;
+        Thread thread = new Thread(() -> watch(watcher), "config-watcher");
+        thread.setDaemon(true); // Never keep the application alive
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Waits for changes of the directory and reloads when one concerns the configuration file.
+     */
+    private void watch(WatchService watcher) {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // OVERFLOW events carry no file name; they mean events were lost, so reload to be safe
+                    relevant |= event.context() == null || fileName.equals(event.context());
+                }
+                key.reset();
+                if (relevant) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    drain(watcher); // Events of the same save are covered by this reload
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // close() was called
+        }
+    }
+
+    private static void drain(WatchService watcher) {
+        WatchKey key;
+        while ((key = watcher.poll()) != null) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    /**
+     * Stops watching the configuration file.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close(); // Ends the watcher thread
+            } catch (IOException e) {
+                System.err.println("Error closing the configuration watcher: " + e.getMessage());
+            }
+            watchService = null;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package oop.finalexam.t3;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Writes JSON request bodies as UTF-8 bytes straight into a reusable buffer.
+ * Each string value is escaped and encoded in a single pass over its characters, so a post's content is
+ * copied once into the buffer instead of once per {@code String.replace}, {@code String.format} and
+ * {@code getBytes} step. Escaping follows RFC 8259: quotes, backslashes and all control characters are
+ * escaped, as are U+2028/U+2029 (which break JavaScript consumers) and unpaired surrogates (which have
+ * no UTF-8 encoding).
+ * <p>
+ * Writers are pooled: {@link #acquire()} hands out an empty writer and {@link #release()} returns it,
+ * so the buffer is reused by later requests. A value can also be streamed from a file while the request
+ * is being sent (see {@link #endObjectWithFileField}), so large posts never exist as one String.
+ * <p>
+ * Usage: {@code writer.beginObject().field("title", title).field("author", author).endObject()}.
+ */
+final class JsonBodyWriter {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024; // A larger buffer is dropped on release, so one huge post does not pin memory
+    private static final int MAX_ESCAPED_CHAR = 6;               // Bytes written for one character at most (a six-byte escape)
+    private static final int FILE_CHUNK_CHARS = 8192;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final ArrayBlockingQueue<JsonBodyWriter> POOL = new ArrayBlockingQueue<>(16);
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    private boolean firstField = true;  // No comma is needed before the next field
+
+    private JsonBodyWriter() {
+    }
+
+    /**
+     * @return An empty writer, reused from the pool if one is available.
+     */
+    static JsonBodyWriter acquire() {
+        JsonBodyWriter writer = POOL.poll();
+        return writer != null ? writer : new JsonBodyWriter();
+    }
+
+    /**
+     * Returns this writer to the pool. It must not be used afterwards.
+     */
+    void release() {
+        reset();
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        POOL.offer(this); // Dropped if the pool is full
+    }
+
+    /**
+     * Discards everything written so far, keeping the buffer.
+     */
+    void reset() {
+        size = 0;
+        firstField = true;
+    }
+
+    // --- Writing ---
+
+    JsonBodyWriter beginObject() {
+        writeByte('{');
+        firstField = true;
+        return this;
+    }
+
+    /**
+     * Writes a string field. A null value is written as an empty string, since the API expects strings.
+     *
+     * @param name The field name.
+     * @param value The field value.
+     * @return This writer, for chaining.
+     */
+    JsonBodyWriter field(String name, String value) {
+        writeName(name);
+        writeByte('"');
+        if (value != null) {
+            writeEscaped(value, 0, value.length());
+        }
+        writeByte('"');
+        return this;
+    }
+
+    JsonBodyWriter endObject() {
+        writeByte('}');
+        return this;
+    }
+
+    /**
+     * Finishes the object with a string field whose value is the content of a UTF-8 text file.
+     * The file is not read now: each stream obtained from the returned supplier reads and escapes it
+     * chunk by chunk while the request body is being sent, so the body never has to fit in memory.
+     * Bytes that are not valid UTF-8 are replaced with U+FFFD. The fields written so far are copied,
+     * so this writer may be released as soon as this method returns.
+     *
+     * @param name The field name.
+     * @param file The file holding the field value.
+     * @return A supplier of fresh streams of the complete body, one per (re)transmission.
+     */
+    Supplier<InputStream> endObjectWithFileField(String name, Path file) {
+        writeName(name);
+        writeByte('"');
+        byte[] head = toByteArray();
+        byte[] tail = {'"', '}'};
+        return () -> {
+            try {
+                List<InputStream> parts = Arrays.asList(new ByteArrayInputStream(head),
+                        new EscapingStream(file), new ByteArrayInputStream(tail));
+                return new SequenceInputStream(Collections.enumeration(parts));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Reported by HttpClient as the failure of the send
+            }
+        };
+    }
+
+    // --- Output ---
+
+    /**
+     * @return The number of bytes written.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return A copy of the bytes written.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Writes the bytes written so far to a stream, without copying them first.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    // --- Encoding ---
+
+    private void writeName(String name) {
+        if (!firstField) {
+            writeByte(',');
+        }
+        firstField = false;
+        writeByte('"');
+        writeEscaped(name, 0, name.length());
+        writeByte('"');
+        writeByte(':');
+    }
+
+    private void writeByte(int b) {
+        if (size == buffer.length) {
+            grow(size + 1);
+        }
+        buffer[size++] = (byte) b;
+    }
+
+    private void grow(int minCapacity) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, minCapacity));
+    }
+
+    /**
+     * Escapes the characters [start, end) of the text and appends them as UTF-8.
+     * A high surrogate at the very end is written as an escape; callers that split text into chunks
+     * must keep surrogate pairs in the same chunk (see {@link EscapingStream}).
+     */
+    void writeEscaped(CharSequence text, int start, int end) {
+        byte[] out = buffer;
+        int pos = size;
+        for (int i = start; i < end; i++) {
+            if (pos + MAX_ESCAPED_CHAR > out.length) {
+                size = pos;
+                grow(pos + (end - i) + MAX_ESCAPED_CHAR); // Enough if the rest is ASCII; doubles otherwise
+                out = buffer;
+            }
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    out[pos++] = '\\';
+                }
+                out[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                out[pos++] = '\\';
+                switch (c) {
+                    case '\n': out[pos++] = 'n'; break;
+                    case '\r': out[pos++] = 'r'; break;
+                    case '\t': out[pos++] = 't'; break;
+                    case '\b': out[pos++] = 'b'; break;
+                    case '\f': out[pos++] = 'f'; break;
+                    default: pos = writeUnicodeEscape(out, pos, c);
+                }
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    out[pos++] = '\\';
+                    pos = writeUnicodeEscape(out, pos, c); // Unpaired: keep it losslessly as an escape
+                }
+            } else if (c == 0x2028 || c == 0x2029) {
+                out[pos++] = '\\';
+                pos = writeUnicodeEscape(out, pos, c);
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        size = pos;
+    }
+
+    /**
+     * Writes "uXXXX" (the backslash is written by the caller).
+     */
+    private static int writeUnicodeEscape(byte[] out, int pos, char c) {
+        out[pos++] = 'u';
+        out[pos++] = HEX[(c >> 12) & 0xF];
+        out[pos++] = HEX[(c >> 8) & 0xF];
+        out[pos++] = HEX[(c >> 4) & 0xF];
+        out[pos++] = HEX[c & 0xF];
+        return pos;
+    }
+
+    /**
+     * Reads a UTF-8 text file and yields it escaped as the inside of a JSON string, one chunk at a time.
+     * Memory use is bounded by the chunk size, whatever the size of the file.
+     */
+    private static final class EscapingStream extends InputStream {
+        private final Reader reader;
+        private final char[] chars = new char[FILE_CHUNK_CHARS];
+        private final CharBuffer charView = CharBuffer.wrap(chars);
+        private final JsonBodyWriter escaped = new JsonBodyWriter(); // Not pooled: lives as long as the request
+        private int position;   // Next byte of 'escaped' to hand out
+        private int carried;    // 1 if chars[0] holds a high surrogate held back from the previous chunk
+        private boolean eof;
+
+        EscapingStream(Path file) throws IOException {
+            this.reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == escaped.size) {
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, escaped.size - position);
+            System.arraycopy(escaped.buffer, position, target, offset, count);
+            position += count;
+            return count;
+        }
+
+        /**
+         * Escapes the next chunk of the file into the buffer.
+         *
+         * @return false at the end of the file.
+         */
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            escaped.reset();
+            position = 0;
+            int read = reader.read(chars, carried, chars.length - carried);
+            if (read < 0) {
+                eof = true;
+                escaped.writeEscaped(charView, 0, carried); // A lone high surrogate at the very end
+                carried = 0;
+                return escaped.size > 0;
+            }
+            int end = carried + read;
+            carried = 0;
+            if (Character.isHighSurrogate(chars[end - 1])) {
+                end--; // Its low surrogate is in the next chunk; keep the pair together
+                carried = 1;
+            }
+            escaped.writeEscaped(charView, 0, end);
+            if (carried == 1) {
+                chars[0] = chars[end];
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package oop.finalexam.t3;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Micro-benchmark for decoding the "?api=blogs" listing.
+ * The same generated listing is decoded repeatedly in three ways:
+ * <ol>
+ *     <li>reflective Gson with a new {@link TypeToken} per call into posts of six plain String fields
+ *     (how the client used to parse, before {@link BlogPost} got its compact storage),</li>
+ *     <li>{@link BlogJson#PARSER} with the cached {@link BlogJson#BLOG_LIST_TYPE}, and</li>
+ *     <li>{@link BlogPostStreamReader} on top of the {@link BlogJson} adapters, without building the list.</li>
+ * </ol>
+ * For each it prints the decode rate and the bytes allocated per decode (from the HotSpot thread
+ * allocation counter, when available).
+ * <p>
+ * Usage: {@code JsonDecodeBenchmark [posts] [iterations]} (defaults: 100 posts, 2000 iterations).
+ */
+public class JsonDecodeBenchmark {
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of posts per listing and number of timed decodes.
+     */
+    public static void main(String[] args) {
+        int postCount = args.length >= 1 ? Integer.parseInt(args[0]) : 100;
+        int iterations = args.length >= 2 ? Integer.parseInt(args[1]) : 2000;
+
+        String body = listing(postCount);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        System.out.printf("Listing: %d posts, %d bytes, %d decodes per variant%n", postCount, bytes.length, iterations);
+
+        Gson reflective = new Gson();
+        BlogPostStreamReader streamReader = new BlogPostStreamReader(BlogJson.PARSER);
+
+        ToIntFunction<String> reflectiveDecode = json -> {
+            ApiResponse<List<PlainPost>> response =
+                    reflective.fromJson(json, new TypeToken<ApiResponse<List<PlainPost>>>(){}.getType());
+            return response.getData().size();
+        };
+        ToIntFunction<String> adapterDecode = json -> {
+            ApiResponse<List<BlogPost>> response = BlogJson.PARSER.fromJson(json, BlogJson.BLOG_LIST_TYPE);
+            return response.getData().size();
+        };
+        ToIntFunction<String> streamingDecode = json -> {
+            try {
+                return streamReader.read(new ByteArrayInputStream(bytes), post -> { }).getData();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        // Warm up every variant first so the JIT has compiled all of them before timing starts
+        for (int round = 0; round < 2; round++) {
+            run("reflective + new TypeToken", body, iterations / 2, reflectiveDecode, true);
+            run("BlogJson adapters", body, iterations / 2, adapterDecode, true);
+            run("streaming reader", body, iterations / 2, streamingDecode, true);
+        }
+        run("reflective + new TypeToken", body, iterations, reflectiveDecode, false);
+        run("BlogJson adapters", body, iterations, adapterDecode, false);
+        run("streaming reader", body, iterations, streamingDecode, false);
+    }
+
+    /**
+     * Decodes the body 'iterations' times and prints throughput and allocation per decode unless 'quiet'.
+     */
+    private static void run(String label, String body, int iterations, ToIntFunction<String> decode, boolean quiet) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long posts = 0;
+        for (int i = 0; i < iterations; i++) {
+            posts += decode.applyAsInt(body); // Summed so the work cannot be optimized away
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (quiet) {
+            return;
+        }
+        double micros = elapsed / 1000.0 / iterations;
+        System.out.printf("%-28s %9.1f us/decode | %9.0f posts/s | %s/decode%n",
+                label, micros, posts / (elapsed / 1_000_000_000.0),
+                allocated >= 0 ? String.format("%,d bytes", allocated / iterations) : "n/a");
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or a negative value if the JVM does not report it.
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * A post as the client used to model it: six String fields, bound by reflection. BlogPost itself cannot
+     * be decoded reflectively any more, because its fields no longer mirror the JSON.
+     */
+    private static final class PlainPost {
+        String id;
+        String title;
+        String content;
+        String author;
+        String created_at;
+        String updated_at;
+    }
+
+    /**
+     * Builds a listing like the one the API returns, with the given number of posts.
+     */
+    private static String listing(int count) {
+        List<BlogPost> posts = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            BlogPost post = new BlogPost();
+            post.setId(String.valueOf(i));
+            post.setTitle("Post number " + i);
+            post.setContent("Lorem ipsum dolor sit amet, \"quoted\" text and a newline\n".repeat(4));
+            post.setAuthor("author" + (i % 7));
+            post.setCreated_at("2024-01-01 10:00:00");
+            post.setUpdated_at("2024-01-02 12:30:00");
+            posts.add(post);
+        }
+        ApiResponse.MetaData meta = new ApiResponse.MetaData();
+        meta.setTotal(count);
+        meta.setLimit(count);
+        meta.setCan_add_more(true);
+        ApiResponse<List<BlogPost>> response = new ApiResponse<>();
+        response.setSuccess(true);
+        response.setData(posts);
+        response.setMeta(meta);
+        return BlogJson.PARSER.toJson(response, BlogJson.BLOG_LIST_TYPE);
+    }
+}
@@ -0,0 +1,55 @@
+package oop.finalexam.t3;
+
+import java.util.Arrays;
+
+/**
+ * Keeps a sliding window of the most recent request latencies and answers percentile queries over it.
+ * Used by {@link ApiClient} to decide when a slow GET deserves a hedge request.
+ * Percentiles are recomputed only every few samples, so reading them is cheap. Thread-safe.
+ */
+class LatencyTracker {
+    private static final int RECOMPUTE_EVERY = 16; // Samples between percentile recomputations
+
+    private final long[] window;
+    private final int minSamples;
+    private final double percentile;
+    private int next;
+    private long count;  // Samples recorded so far; a long, so a long-lived client cannot overflow it
+    private volatile long cachedPercentileNanos = -1;
+
+    /**
+     * Constructs a LatencyTracker.
+     *
+     * @param windowSize The number of recent samples kept.
+     * @param minSamples The number of samples required before a percentile is reported.
+     * @param percentile The tracked percentile (e.g., 0.95).
+     */
+    LatencyTracker(int windowSize, int minSamples, double percentile) {
+        this.window = new long[windowSize];
+        this.minSamples = minSamples;
+        this.percentile = percentile;
+    }
+
+    /**
+     * Records the latency of a completed request.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    synchronized void record(long nanos) {
+        window[next] = nanos;
+        next = (next + 1) % window.length;
+        count++;
+        if (count >= minSamples && count % RECOMPUTE_EVERY == 0 || count == minSamples) {
+            long[] samples = Arrays.copyOf(window, (int) Math.min(count, window.length));
+            Arrays.sort(samples);
+            cachedPercentileNanos = samples[(int) Math.min(samples.length - 1, Math.floor(percentile * samples.length))];
+        }
+    }
+
+    /**
+     * @return The tracked latency percentile in nanoseconds, or -1 while too few samples have been recorded.
+     */
+    long percentileNanos() {
+        return cachedPercentileNanos;
+    }
+}
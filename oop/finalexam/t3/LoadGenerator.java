@@ -0,0 +1,125 @@
+package oop.finalexam.t3;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives an {@link ApiClient} at a fixed target request rate and reports throughput and latency percentiles.
+ * Requests are sent open-loop: each one is started at its scheduled time whether or not earlier requests
+ * have finished, and its latency is measured from that scheduled time. A slow server therefore shows up
+ * as high latency instead of being hidden by a slower send rate.
+ * <p>
+ * The workload mixes blog listings, statistics and (optionally) post creation. The client is used as given;
+ * {@link #main} builds one without a response cache and with request coalescing switched off (see
+ * {@link ApiClient#setRequestCoalescing}), so every request reaches the server.
+ */
+public class LoadGenerator {
+    private final ApiClient apiClient;
+    private final double postShare;
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Constructs a LoadGenerator.
+     *
+     * @param apiClient The client under test.
+     * @param postShare The share of requests that create a post (0.0 - 1.0); the rest are split evenly between blogs and stats.
+     */
+    public LoadGenerator(ApiClient apiClient, double postShare) {
+        this.apiClient = apiClient;
+        this.postShare = postShare;
+    }
+
+    /**
+     * Sends requests at the target rate for the given duration, then waits for the outstanding ones.
+     *
+     * @param requestsPerSecond The target rate.
+     * @param seconds The duration of the run.
+     * @return A one-line report with achieved throughput, errors and latency percentiles.
+     */
+    public String run(double requestsPerSecond, int seconds) {
+        long intervalNanos = (long) (1_000_000_000L / requestsPerSecond);
+        long total = (long) (requestsPerSecond * seconds);
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[(int) total];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            requests[i] = nextRequest().whenComplete((result, error) -> {
+                latencies.recordNanos(System.nanoTime() - scheduled); // Measured from the intended start time
+                if (error != null) {
+                    failed.incrementAndGet();
+                } else {
+                    completed.incrementAndGet();
+                }
+            });
+        }
+        CompletableFuture.allOf(requests).handle((ignored, error) -> null).join();
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        return String.format("Target %.0f req/s for %d s: %d ok, %d failed, achieved %.1f req/s | latency %s",
+                requestsPerSecond, seconds, completed.get(), failed.get(), (completed.get() + failed.get()) / elapsed,
+                latencies.summary());
+    }
+
+    /**
+     * Picks the next request of the workload mix.
+     */
+    private CompletableFuture<?> nextRequest() {
+        double dice = ThreadLocalRandom.current().nextDouble();
+        if (dice < postShare) {
+            return apiClient.createBlogPostAsync("Load test post", "load-generator", "Generated by LoadGenerator");
+        }
+        return dice < postShare + (1 - postShare) / 2 ? apiClient.getAllBlogPostsAsync() : apiClient.getSiteStatisticsAsync();
+    }
+
+    /**
+     * Runs a load test from the command line. Without a server URL an in-process {@link StubBlogServer} is started.
+     * Usage: {@code LoadGenerator [requestsPerSecond] [seconds] [serverUrl] [latencyMillis] [errorRate]}
+     *
+     * @param args Optional rate (default 200), duration (10), server URL ("stub"), and the stub's injected
+     *             latency (5 ms) and error rate (0.01).
+     * @throws Exception If the stub server cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        double rate = args.length >= 1 ? Double.parseDouble(args[0]) : 200;
+        int seconds = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+        String serverUrl = args.length >= 3 && !args[2].equals("stub") ? args[2] : null;
+
+        StubBlogServer stub = null;
+        if (serverUrl == null) {
+            stub = new StubBlogServer(Integer.MAX_VALUE);
+            stub.seed(50, 300);
+            stub.setLatency(args.length >= 4 ? Long.parseLong(args[3]) : 5, 5);
+            stub.setErrorRate(args.length >= 5 ? Double.parseDouble(args[4]) : 0.01);
+            stub.start(0);
+            serverUrl = stub.getBaseUrl();
+        }
+
+        TransportConfig transport = TransportConfig.defaults();
+        ApiClient client = new ApiClient(serverUrl, transport.createExecutor(), new ApiResponseCache(1, Map.of()), transport);
+        client.setRequestCoalescing(false); // Identical concurrent GETs would otherwise share one request
+        LoadGenerator generator = new LoadGenerator(client, stub != null ? 0.1 : 0.0); // Only create posts on the stub
+        try {
+            System.out.println(generator.run(rate, seconds));
+            System.out.print(client.getMetrics().report());
+            System.out.println("Hedged requests: " + client.getHedgedRequestCount() + ", retries: " + client.getRetryCount());
+            System.out.println(client.getConcurrencyLimiter());
+        } finally {
+            if (stub != null) {
+                TimeUnit.MILLISECONDS.sleep(100); // Let late responses drain before closing the server
+                stub.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package oop.finalexam.t3;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shows how {@link ConcurrencyLimiter} keeps {@link ApiClient} working when it offers more load than the
+ * server can take. A {@link StubBlogServer} with a fixed number of workers is driven open-loop (see
+ * {@link LoadGenerator}) above its capacity, once with an unlimited client and once with the adaptive limiter,
+ * and both runs are reported side by side: successful requests per second ("goodput"), rejections, server
+ * errors, the latency of the successful requests, and how many requests reached the server.
+ * <p>
+ * The workload requests pages of posts at random offsets, so that identical requests are rarely coalesced
+ * and every call costs the server a worker.
+ * <p>
+ * Usage: {@code OverloadTest [requestsPerSecond] [seconds] [serverWorkers] [serverLatencyMillis]}
+ * (defaults: 600 req/s for 10 s against 10 workers taking 25 ms each, i.e., a capacity of 400 req/s).
+ */
+public class OverloadTest {
+
+    /**
+     * Runs both phases.
+     *
+     * @param args Optional offered rate, duration, server workers and server latency.
+     * @throws Exception If the stub server cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        double rate = args.length >= 1 ? Double.parseDouble(args[0]) : 600;
+        int seconds = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+        int workers = args.length >= 3 ? Integer.parseInt(args[2]) : 10;
+        long latency = args.length >= 4 ? Long.parseLong(args[3]) : 25;
+        System.out.printf("Offering %.0f req/s for %d s to a server with %d workers of %d ms (capacity about %.0f req/s)%n",
+                rate, seconds, workers, latency, workers * 1000.0 / latency);
+
+        runPhase(ConcurrencyLimiter.withDefaults(), rate / 4, 3, workers, latency); // Warms up the JVM so both phases run compiled code
+        System.out.println("Unlimited: " + runPhase(ConcurrencyLimiter.unlimited(), rate, seconds, workers, latency));
+        System.out.println("Adaptive:  " + runPhase(ConcurrencyLimiter.withDefaults(), rate, seconds, workers, latency));
+    }
+
+    /**
+     * Drives a fresh stub server through a client using the given limiter and summarizes the outcome.
+     */
+    private static String runPhase(ConcurrencyLimiter limiter, double rate, int seconds, int workers, long latency) throws Exception {
+        StubBlogServer stub = new StubBlogServer(1000).start(0);
+        stub.seed(200, 200);
+        stub.setLatency(latency, 0);
+        stub.setCapacity(workers);
+        TransportConfig transport = TransportConfig.defaults();
+        ApiClient client = new ApiClient(stub.getBaseUrl(), transport.createExecutor(), new ApiResponseCache(1, Map.of()), transport);
+        client.setConcurrencyLimiter(limiter);
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        int total = (int) (rate * seconds);
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[total];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int offset = ThreadLocalRandom.current().nextInt(1_000_000); // Mostly empty pages, but each one reaches the server
+            requests[i] = client.getBlogPostsPageAsync(offset, 5).whenComplete((page, error) -> {
+                if (error == null) {
+                    latencies.recordNanos(System.nanoTime() - scheduled); // Measured from the intended start time
+                    ok.incrementAndGet();
+                } else if (ApiException.from("GET", error).getKind() == ApiException.Kind.OVERLOADED) {
+                    rejected.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+        CompletableFuture.allOf(requests).handle((ignored, error) -> null).join();
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        TimeUnit.MILLISECONDS.sleep(1000); // Let late responses (e.g., of cancelled hedges) drain before reporting
+        String summary = String.format("goodput %.0f req/s, %d ok, %d rejected by the client, %d failed; "
+                        + "server received %d requests; ok latency %s; %s",
+                ok.get() / elapsed, ok.get(), rejected.get(), failed.get(), stub.getRequestCount(), latencies.summary(), limiter);
+        stub.stop();
+        return summary;
+    }
+}
@@ -0,0 +1,84 @@
+package oop.finalexam.t3;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency and retry settings for the idempotent GET requests of {@link ApiClient}.
+ * <p>
+ * Hedging: if a GET has not answered within the given percentile of recently observed latencies
+ * for its endpoint, a second identical request is sent; the first answer wins and the other is cancelled.
+ * Retries: failed GETs (connection errors, timeouts, HTTP 429 and 5xx) are retried after an exponential
+ * backoff with full jitter. POST requests are never hedged or retried because they are not idempotent.
+ */
+public class RequestPolicy {
+    private final double hedgePercentile; // 0 < p < 1, or 0 to disable hedging
+    private final int maxRetries;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+
+    /**
+     * Constructs a RequestPolicy.
+     *
+     * @param hedgePercentile The latency percentile after which a hedge request is sent (e.g., 0.95), or 0 to disable hedging.
+     * @param maxRetries The maximum number of retries after the first attempt (0 disables retries).
+     * @param baseBackoff The backoff ceiling before the first retry; it doubles for every further retry.
+     * @param maxBackoff The upper bound of the backoff ceiling.
+     */
+    public RequestPolicy(double hedgePercentile, int maxRetries, Duration baseBackoff, Duration maxBackoff) {
+        if (hedgePercentile < 0 || hedgePercentile >= 1 || maxRetries < 0) {
+            throw new IllegalArgumentException("hedgePercentile must be in [0, 1) and maxRetries non-negative");
+        }
+        this.hedgePercentile = hedgePercentile;
+        this.maxRetries = maxRetries;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * @return The default policy: hedge at p95, up to 2 retries with backoff starting at 100 ms, capped at 2 seconds.
+     */
+    public static RequestPolicy defaults() {
+        return new RequestPolicy(0.95, 2, Duration.ofMillis(100), Duration.ofSeconds(2));
+    }
+
+    /**
+     * @return A policy that sends every request exactly once.
+     */
+    public static RequestPolicy singleShot() {
+        return new RequestPolicy(0, 0, Duration.ZERO, Duration.ZERO);
+    }
+
+    // --- Getters ---
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgePercentile > 0;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public Duration getBaseBackoff() {
+        return baseBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Computes a randomized ("full jitter") delay before a retry, so that many clients failing at
+     * the same moment do not retry in lockstep.
+     *
+     * @param retry The 0-based number of the retry.
+     * @return A random delay between 0 and min(maxBackoff, baseBackoff * 2^retry), in milliseconds.
+     */
+    public long backoffMillis(int retry) {
+        long ceiling = Math.min(maxBackoff.toMillis(), baseBackoff.toMillis() << Math.min(retry, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
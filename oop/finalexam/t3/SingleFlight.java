@@ -0,0 +1,165 @@
+package oop.finalexam.t3;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: while a call for a key is in flight, further callers with
+ * the same key join it instead of starting their own, and all of them receive its result.
+ * Once the call completes the key is released, so later callers start a fresh call (results are never reused
+ * after completion; that is the job of the {@link ApiResponseCache}).
+ * <p>
+ * Every caller receives its own dependent copy of the shared future, so cancelling or completing one
+ * caller's future does not affect the others. When the last caller of a call cancels, nobody needs its
+ * result any more: the call itself is cancelled (which aborts its request and frees its permit) and the
+ * key is released. Joined callers are counted in {@link ClientMetrics}.
+ * Keys must always be used with the same result type. Coalescing can be switched off (see {@link #setEnabled}),
+ * e.g. for load tests in which every call has to reach the server.
+ */
+final class SingleFlight {
+    private final Map<String, Flight<?>> inFlight = new ConcurrentHashMap<>();
+    private final ClientMetrics metrics;
+    private volatile boolean enabled = true;
+
+    /**
+     * Constructs a SingleFlight.
+     *
+     * @param metrics Receives one count per joined (deduplicated) call.
+     */
+    SingleFlight(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the call unless an identical one is already in flight, in which case its result is shared.
+     *
+     * @param key Identifies identical calls (e.g., "GET ?api=stats").
+     * @param call Starts the call; only invoked by the first caller.
+     * @param <T> The result type.
+     * @return A future of the (possibly shared) result. Cancelling it cancels the call once no other caller waits for it.
+     */
+    @SuppressWarnings("unchecked") // Each key is only ever used with one result type
+    <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Flight<T> flight = new Flight<>(key);
+        CompletableFuture<T> own = flight.join(); // Joined before it is published, so it cannot be abandoned while starting
+        Flight<T> existing;
+        while ((existing = (Flight<T>) inFlight.putIfAbsent(key, flight)) != null) {
+            CompletableFuture<T> joined = existing.join();
+            if (joined != null) {
+                metrics.recordCoalesced(key);
+                return joined;
+            }
+            inFlight.remove(key, existing); // All its callers have just cancelled it: start a fresh call instead
+        }
+        flight.start(call);
+        return own;
+    }
+
+    /**
+     * Makes callers from now on start fresh calls instead of joining the ones in flight, e.g. after a
+     * write that the in-flight responses may predate. Running calls still complete for their callers.
+     */
+    void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * Switches coalescing on or off. While it is off, every call runs on its own; calls in flight are not affected.
+     *
+     * @param enabled false to run every call on its own.
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            inFlight.clear();
+        }
+    }
+
+    /**
+     * One call in flight and the number of callers still waiting for it.
+     */
+    private final class Flight<T> {
+        private final String key;
+        private final CompletableFuture<T> shared = new CompletableFuture<>();
+        private CompletableFuture<T> call; // The running call, once started. Guarded by 'this'
+        private int waiters;               // Callers whose copies are neither done nor cancelled. Guarded by 'this'
+        private boolean abandoned;         // Set when the last waiter cancelled; nobody may join any more. Guarded by 'this'
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Adds a caller.
+         *
+         * @return The caller's own copy of the result, or null if the flight has been abandoned.
+         */
+        synchronized CompletableFuture<T> join() {
+            if (abandoned) {
+                return null;
+            }
+            waiters++;
+            CompletableFuture<T> copy = shared.copy();
+            copy.whenComplete((result, error) -> {
+                if (error instanceof CancellationException) {
+                    leave();
+                }
+            });
+            return copy;
+        }
+
+        /**
+         * Removes a caller that cancelled, and cancels the call if it was the last one.
+         */
+        private void leave() {
+            CompletableFuture<T> running;
+            synchronized (this) {
+                if (--waiters > 0 || shared.isDone()) {
+                    return;
+                }
+                abandoned = true;
+                running = call;
+            }
+            inFlight.remove(key, this);
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+
+        /**
+         * Starts the call and shares its outcome with every caller.
+         */
+        void start(Supplier<CompletableFuture<T>> starter) {
+            CompletableFuture<T> running;
+            try {
+                running = starter.get();
+            } catch (RuntimeException e) {
+                inFlight.remove(key, this);
+                shared.completeExceptionally(e);
+                return;
+            }
+            boolean cancelled;
+            synchronized (this) {
+                call = running;
+                cancelled = abandoned;
+            }
+            if (cancelled) {
+                running.cancel(true); // Abandoned while starting
+            }
+            running.whenComplete((result, error) -> {
+                inFlight.remove(key, this); // Released before completing, so no one joins a finished call
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(result);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package oop.finalexam.t3;
+
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import oop.finalexam.VirtualThreads;
+
+/**
+ * An in-process stand-in for the blog REST API, built on {@code com.sun.net.httpserver}, so that
+ * {@link ApiClient} can be developed and load-tested offline. It implements the same endpoints and
+ * JSON shapes as the real server ({@link ApiResponse}, {@link ApiResponse.MetaData}, {@link ApiResponse.StatsData}):
+ * <ul>
+ *     <li>{@code GET ?api=blogs[&limit=L&offset=O][&updated_since=T]} - lists posts, optionally one page at a time
+ *     and only those updated at or after timestamp T</li>
+ *     <li>{@code POST ?api=blogs} - creates a post from {"title", "author", "content"}</li>
+ *     <li>{@code GET ?api=stats} - reports the post quota</li>
+ * </ul>
+ * Responses carry an ETag (answered with 304 when it still matches) and are gzip-compressed when the
+ * client accepts it. A configurable latency and error rate can be injected into every request, and the
+ * number of requests processed at once can be capped to imitate a server with a fixed worker pool. The
+ * paging parameters can be ignored to imitate an older server that always sends the whole listing, and
+ * the page size can be capped to imitate a server that limits how many posts one request may return.
+ * The server is thread-safe.
+ */
+public class StubBlogServer {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int GZIP_MIN_BYTES = 1024; // Smaller responses are not worth compressing
+    private static final long WORKER_WAIT_MILLIS = 1000; // How long a request waits for a worker before it gets a 503
+
+    private final List<BlogPost> posts = new ArrayList<>(); // Guarded by 'this'
+    private final int maxPosts;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger peakActiveRequests = new AtomicInteger();
+    private long version;    // Incremented on every change; used as the ETag. Guarded by 'this'
+    private int nextId = 1;  // Guarded by 'this'
+
+    private volatile long baseLatencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile Semaphore workers;  // Null for unlimited capacity
+    private volatile boolean pagingIgnored;
+    private volatile int maxPageSize;    // 0 for no cap
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a StubBlogServer that accepts up to {@code maxPosts} posts.
+     *
+     * @param maxPosts The post quota reported by "?api=stats".
+     */
+    public StubBlogServer(int maxPosts) {
+        this.maxPosts = maxPosts;
+    }
+
+    /**
+     * Starts the server on the given port of the loopback interface.
+     *
+     * @param port The port, or 0 to pick a free one.
+     * @return This server, for chaining.
+     * @throws IOException If the port cannot be bound.
+     */
+    public StubBlogServer start(int port) throws IOException {
+        // Without TCP_NODELAY, small responses on loopback wait for delayed ACKs and add ~40 ms to every request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = VirtualThreads.newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * Stops the server and its worker threads.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The base URL to pass to {@link ApiClient}, e.g. "http://127.0.0.1:50123/index.php".
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/index.php";
+    }
+
+    /**
+     * Sets the latency added to every request: {@code base} plus a random extra between 0 and {@code jitter}.
+     *
+     * @param baseMillis The fixed part in milliseconds.
+     * @param jitterMillis The random part in milliseconds.
+     */
+    public void setLatency(long baseMillis, long jitterMillis) {
+        this.baseLatencyMillis = baseMillis;
+        this.latencyJitterMillis = jitterMillis;
+    }
+
+    /**
+     * Sets the share of requests answered with HTTP 500 instead of being processed.
+     *
+     * @param errorRate A value between 0.0 (never) and 1.0 (always).
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Caps the number of requests processed at once, like a server with a fixed pool of workers. Requests
+     * beyond the cap wait for a free worker (which shows as rising latency) and are answered with HTTP 503
+     * if none becomes free within {@link #WORKER_WAIT_MILLIS}.
+     *
+     * @param concurrentRequests The number of workers, or 0 for unlimited capacity.
+     */
+    public void setCapacity(int concurrentRequests) {
+        this.workers = concurrentRequests > 0 ? new Semaphore(concurrentRequests, true) : null;
+    }
+
+    /**
+     * Makes "?api=blogs" ignore the limit and offset parameters and always list every (matching) post,
+     * like a server that does not support paging.
+     *
+     * @param pagingIgnored true to ignore the paging parameters.
+     */
+    public void setPagingIgnored(boolean pagingIgnored) {
+        this.pagingIgnored = pagingIgnored;
+    }
+
+    /**
+     * Caps the number of posts one "?api=blogs" request returns when it asks for a page, whatever its "limit".
+     *
+     * @param maxPageSize The largest page returned, or 0 for no cap.
+     */
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * @return The number of requests received so far.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return The largest number of requests that were being handled (or waiting for a worker) at the same time.
+     */
+    public int getPeakConcurrentRequests() {
+        return peakActiveRequests.get();
+    }
+
+    /**
+     * Adds generated posts, e.g. to test large listings.
+     *
+     * @param count The number of posts to add (the quota is not checked).
+     * @param contentLength The length of each post's content in characters.
+     */
+    public synchronized void seed(int count, int contentLength) {
+        String content = "Lorem ipsum dolor sit amet. ".repeat(contentLength / 28 + 1).substring(0, contentLength);
+        for (int i = 0; i < count; i++) {
+            addPost("Generated post " + nextId, "author" + (nextId % 50), content);
+        }
+    }
+
+    // --- Request handling ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        peakActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+        Semaphore capacity = workers;
+        try {
+            if (capacity == null) {
+                handleRequest(exchange);
+            } else if (capacity.tryAcquire(WORKER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                try {
+                    handleRequest(exchange);
+                } finally {
+                    capacity.release();
+                }
+            } else {
+                send(exchange, 503, "{\"success\":false,\"data\":\"Server busy\"}", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // The server is stopping
+        } finally {
+            activeRequests.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        try {
+            injectLatency();
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, 500, "{\"success\":false,\"data\":\"Injected server error\"}", null);
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String api = query.getOrDefault("api", "");
+            String method = exchange.getRequestMethod();
+            if (api.equals("blogs") && method.equals("GET")) {
+                listPosts(exchange, query);
+            } else if (api.equals("blogs") && method.equals("POST")) {
+                createPost(exchange);
+            } else if (api.equals("stats") && method.equals("GET")) {
+                sendStats(exchange);
+            } else {
+                send(exchange, 404, "{\"success\":false,\"data\":\"Unknown endpoint\"}", null);
+            }
+        } catch (RuntimeException e) {
+            send(exchange, 500, "{\"success\":false,\"data\":" + BlogJson.PARSER.toJson(String.valueOf(e.getMessage())) + "}", null);
+        }
+    }
+
+    private void listPosts(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String json;
+        String etag;
+        synchronized (this) {
+            etag = etag();
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                send(exchange, 304, null, etag);
+                return;
+            }
+            int total = posts.size();
+            List<BlogPost> matching = posts;
+            String updatedSince = query.get("updated_since");
+            if (updatedSince != null) {
+                // Inclusive, because timestamps have one-second resolution; the format sorts lexicographically
+                matching = new ArrayList<>();
+                for (BlogPost post : posts) {
+                    if (post.getUpdated_at().compareTo(updatedSince) >= 0) {
+                        matching.add(post);
+                    }
+                }
+            }
+            boolean paged = !pagingIgnored;
+            int offset = paged ? Math.min(matching.size(), Math.max(0, intParam(query, "offset", 0))) : 0;
+            int limit = paged ? Math.max(0, intParam(query, "limit", matching.size())) : matching.size();
+            int cap = maxPageSize;
+            if (paged && cap > 0 && query.containsKey("limit")) {
+                limit = Math.min(limit, cap);
+            }
+            List<BlogPost> page = new ArrayList<>(matching.subList(offset, Math.min(matching.size(), offset + limit)));
+
+            ApiResponse.MetaData meta = new ApiResponse.MetaData();
+            meta.setTotal(total);
+            meta.setLimit(paged && query.containsKey("limit") ? limit : maxPosts);
+            meta.setCan_add_more(total < maxPosts);
+            ApiResponse<List<BlogPost>> response = new ApiResponse<>();
+            response.setSuccess(true);
+            response.setData(page);
+            response.setMeta(meta);
+            json = BlogJson.PARSER.toJson(response);
+        }
+        send(exchange, 200, json, etag);
+    }
+
+    private void createPost(HttpExchange exchange) throws IOException {
+        BlogPost input;
+        try (InputStream raw = exchange.getRequestBody();
+             InputStream body = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                     ? new GZIPInputStream(raw) : raw) {
+            input = BlogJson.PARSER.fromJson(new InputStreamReader(body, StandardCharsets.UTF_8), BlogPost.class);
+        } catch (JsonParseException e) {
+            send(exchange, 400, "{\"success\":false,\"data\":\"Invalid JSON body\"}", null);
+            return;
+        }
+        if (input == null || input.getTitle() == null || input.getTitle().isEmpty()) {
+            send(exchange, 400, "{\"success\":false,\"data\":\"Title is required\"}", null);
+            return;
+        }
+
+        String json;
+        synchronized (this) {
+            if (posts.size() >= maxPosts) {
+                json = "{\"success\":false,\"data\":\"Maximum number of posts reached\"}";
+            } else {
+                ApiResponse<BlogPost> response = new ApiResponse<>();
+                response.setSuccess(true);
+                response.setData(addPost(input.getTitle(), input.getAuthor(), input.getContent()));
+                json = BlogJson.PARSER.toJson(response);
+            }
+        }
+        send(exchange, 200, json, null);
+    }
+
+    private void sendStats(HttpExchange exchange) throws IOException {
+        String json;
+        String etag;
+        synchronized (this) {
+            etag = etag();
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                send(exchange, 304, null, etag);
+                return;
+            }
+            ApiResponse.StatsData stats = new ApiResponse.StatsData();
+            stats.setTotal_posts(posts.size());
+            stats.setMax_posts(maxPosts);
+            stats.setRemaining_posts(Math.max(0, maxPosts - posts.size()));
+            stats.setPercentage_used(maxPosts == 0 ? 100 : posts.size() * 100 / maxPosts);
+            stats.setCan_add_more(posts.size() < maxPosts);
+            ApiResponse<ApiResponse.StatsData> response = new ApiResponse<>();
+            response.setSuccess(true);
+            response.setData(stats);
+            json = BlogJson.PARSER.toJson(response);
+        }
+        send(exchange, 200, json, etag);
+    }
+
+    /**
+     * Appends a post; callers hold the lock.
+     */
+    private BlogPost addPost(String title, String author, String content) {
+        String now = LocalDateTime.now().format(TIMESTAMP);
+        BlogPost post = new BlogPost();
+        post.setId(String.valueOf(nextId++));
+        post.setTitle(title);
+        post.setAuthor(author);
+        post.setContent(content);
+        post.setCreated_at(now);
+        post.setUpdated_at(now);
+        posts.add(post);
+        version++;
+        return post;
+    }
+
+    private String etag() {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Writes a JSON response, gzip-compressing it when the client accepts gzip and the body is large enough.
+     */
+    private static void send(HttpExchange exchange, int status, String json, String etag) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1); // No body (304)
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding != null && acceptEncoding.contains("gzip") && body.length >= GZIP_MIN_BYTES) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void injectLatency() {
+        long delay = baseLatencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        try {
+            return query.containsKey(name) ? Integer.parseInt(query.get(name)) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Runs the stub server on its own, e.g. to point 'config.txt' at it.
+     * Usage: {@code StubBlogServer [port] [maxPosts] [seedPosts] [latencyMillis] [errorRate]}
+     *
+     * @param args Optional port (default 8080), quota (100), generated posts (10), latency (0) and error rate (0.0).
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length >= 1 ? Integer.parseInt(args[0]) : 8080;
+        StubBlogServer stub = new StubBlogServer(args.length >= 2 ? Integer.parseInt(args[1]) : 100);
+        stub.seed(args.length >= 3 ? Integer.parseInt(args[2]) : 10, 200);
+        stub.setLatency(args.length >= 4 ? Long.parseLong(args[3]) : 0, 0);
+        stub.setErrorRate(args.length >= 5 ? Double.parseDouble(args[4]) : 0.0);
+        stub.start(port);
+        System.out.println("Stub blog server running. Use SERVER_URL=" + stub.getBaseUrl());
+    }
+}
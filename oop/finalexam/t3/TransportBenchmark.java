@@ -0,0 +1,102 @@
+package oop.finalexam.t3;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Load benchmark showing the cost of connection setup per request.
+ * A local HTTP server counts the distinct client connections it sees (by remote address and port),
+ * while the same GET workload is run twice:
+ * <ol>
+ *     <li>with one shared, pooled {@link ApiClient} (connections are kept alive and reused), and</li>
+ *     <li>with a new ApiClient per request (every request opens a fresh connection).</li>
+ * </ol>
+ * Usage: {@code TransportBenchmark [requests] [concurrency]} (defaults: 2000 requests, 16 concurrent).
+ */
+public class TransportBenchmark {
+    private static final byte[] STATS_BODY = ("{\"success\":true,\"data\":{\"total_posts\":3,\"max_posts\":10,"
+            + "\"remaining_posts\":7,\"percentage_used\":30,\"can_add_more\":true}}").getBytes(StandardCharsets.UTF_8);
+
+    private static final Set<String> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional number of requests and concurrency.
+     * @throws Exception If the local server cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        int requests = args.length >= 1 ? Integer.parseInt(args[0]) : 2000;
+        int concurrency = args.length >= 2 ? Integer.parseInt(args[1]) : 16;
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService serverThreads = Executors.newFixedThreadPool(concurrency);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            connections.add(exchange.getRemoteAddress().toString()); // One address:port pair per TCP connection
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, STATS_BODY.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(STATS_BODY);
+            }
+        });
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/index.php";
+
+        try {
+            // HTTP/1.1 because the local server does not speak HTTP/2; no cache so every call hits the network
+            TransportConfig transport = new TransportConfig(HttpClient.Version.HTTP_1_1,
+                    Duration.ofSeconds(10), Duration.ofSeconds(30), 0, 1200, 0, 0);
+
+            ApiClient shared = new ApiClient(baseUrl, transport.createExecutor(), uncached(), transport);
+            run("warm-up", requests / 4, concurrency, () -> shared);
+            run("pooled client (keep-alive)", requests, concurrency, () -> shared);
+            run("new client per request", requests, concurrency,
+                    () -> new ApiClient(baseUrl, transport.createExecutor(), uncached(), transport));
+        } finally {
+            server.stop(0);
+            serverThreads.shutdown(); // HttpServer.stop does not stop its executor
+        }
+    }
+
+    /**
+     * Runs one workload and prints throughput, mean latency and new connections per request.
+     */
+    private static void run(String label, int requests, int concurrency, Supplier<ApiClient> clients) throws InterruptedException {
+        connections.clear();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            workers.submit(() -> {
+                String body = clients.get().getSiteStatistics();
+                if (body.startsWith("Error")) {
+                    errors.incrementAndGet();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("%-28s %6d requests in %6.2f s | %8.1f req/s | mean %6.2f ms | %5d connections (%.3f per request) | %d errors%n",
+                label, requests, seconds, requests / seconds, seconds * 1000 * concurrency / requests,
+                connections.size(), (double) connections.size() / requests, errors.get());
+    }
+
+    private static ApiResponseCache uncached() {
+        return new ApiResponseCache(1, Map.of());
+    }
+}
@@ -0,0 +1,213 @@
+package oop.finalexam.t3;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import oop.finalexam.VirtualThreads;
+
+/**
+ * HTTP transport settings for {@link ApiClient}, read from 'config.txt' through {@link ConfigLoader}.
+ * All keys are optional; missing or invalid values fall back to the defaults shown below. A timeout of zero or
+ * less is invalid too (the HttpClient rejects it), so it also falls back to the default.
+ *
+ * <pre>
+ * HTTP_VERSION=HTTP_2            # HTTP_2 (multiplexed streams where the server supports it) or HTTP_1_1
+ * CONNECT_TIMEOUT_MS=10000       # Timeout for establishing a connection
+ * REQUEST_TIMEOUT_MS=30000       # Timeout for a whole request, until the response headers arrive
+ * EXECUTOR_THREADS=0             # Size of a dedicated fixed pool; 0 uses a thread per task (virtual threads on Java 21+)
+ * KEEP_ALIVE_TIMEOUT_S=1200      # How long idle pooled connections are kept open
+ * MAX_POOLED_CONNECTIONS=0       # Upper bound of idle pooled connections; 0 means unlimited
+ * GZIP_REQUEST_MIN_BYTES=0       # gzip POST bodies of at least this many bytes; 0 never compresses
+ * </pre>
+ *
+ * The keep-alive and pool size settings map to the JDK's {@code jdk.httpclient.keepalive.timeout} and
+ * {@code jdk.httpclient.connectionPoolSize} system properties. The JDK reads those once, when the first
+ * HttpClient is created, so they only take effect if the configuration is loaded before any client exists.
+ * <p>
+ * When config.txt is reloaded, {@link ApiClient#applyConfig} applies the new REQUEST_TIMEOUT_MS and
+ * GZIP_REQUEST_MIN_BYTES to later requests and resizes a dedicated EXECUTOR_THREADS pool; the other
+ * settings are built into the HttpClient and need a restart.
+ */
+public class TransportConfig {
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient.Version httpVersion;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final int executorThreads;
+    private final int keepAliveSeconds;
+    private final int maxPooledConnections;
+    private final int gzipRequestMinBytes;
+
+    /**
+     * Constructs a TransportConfig.
+     *
+     * @param httpVersion The preferred HTTP version.
+     * @param connectTimeout The connection timeout; null, zero or negative means the default.
+     * @param requestTimeout The per-request timeout; null, zero or negative means the default.
+     * @param executorThreads The size of a dedicated executor, or 0 for a thread per task.
+     * @param keepAliveSeconds The idle timeout of pooled connections, in seconds.
+     * @param maxPooledConnections The maximum number of idle pooled connections, or 0 for unlimited.
+     * @param gzipRequestMinBytes The minimum POST body size for gzip compression, or 0 to never compress
+     *                            (only enable it for servers that accept compressed request bodies).
+     */
+    public TransportConfig(HttpClient.Version httpVersion, Duration connectTimeout, Duration requestTimeout,
+                           int executorThreads, int keepAliveSeconds, int maxPooledConnections, int gzipRequestMinBytes) {
+        this.httpVersion = httpVersion;
+        this.connectTimeout = isPositive(connectTimeout) ? connectTimeout : DEFAULT_CONNECT_TIMEOUT;
+        this.requestTimeout = isPositive(requestTimeout) ? requestTimeout : DEFAULT_REQUEST_TIMEOUT;
+        this.executorThreads = executorThreads;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.maxPooledConnections = maxPooledConnections;
+        this.gzipRequestMinBytes = gzipRequestMinBytes;
+    }
+
+    /**
+     * @return The default settings: HTTP/2, 10 s connect timeout, 30 s request timeout, thread-per-task executor,
+     *         20 minute keep-alive, unlimited pool, uncompressed request bodies.
+     */
+    public static TransportConfig defaults() {
+        return new TransportConfig(HttpClient.Version.HTTP_2, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, 0, 1200, 0, 0);
+    }
+
+    /**
+     * Reads the transport settings from the configuration and applies the connection pool system properties
+     * (unless they were already set, e.g., on the command line).
+     *
+     * @param config The loaded configuration.
+     * @return The transport settings.
+     */
+    public static TransportConfig fromConfig(ConfigLoader config) {
+        TransportConfig transport = fromSettings(config.getSettings());
+        transport.applyConnectionPoolProperties();
+        return transport;
+    }
+
+    /**
+     * Reads the transport settings from a configuration snapshot, without touching any system properties.
+     *
+     * @param settings The configuration snapshot (see {@link ConfigLoader#getSettings()}).
+     * @return The transport settings.
+     */
+    public static TransportConfig fromSettings(ConfigLoader.Settings settings) {
+        TransportConfig defaults = defaults();
+        HttpClient.Version version = defaults.httpVersion;
+        String versionValue = settings.getProperty("HTTP_VERSION");
+        if (versionValue != null) {
+            try {
+                version = HttpClient.Version.valueOf(versionValue.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring invalid HTTP_VERSION '" + versionValue + "', expected HTTP_2 or HTTP_1_1.");
+            }
+        }
+
+        return new TransportConfig(version,
+                timeout(settings, "CONNECT_TIMEOUT_MS", defaults.connectTimeout),
+                timeout(settings, "REQUEST_TIMEOUT_MS", defaults.requestTimeout),
+                settings.getInt("EXECUTOR_THREADS", defaults.executorThreads),
+                settings.getInt("KEEP_ALIVE_TIMEOUT_S", defaults.keepAliveSeconds),
+                settings.getInt("MAX_POOLED_CONNECTIONS", defaults.maxPooledConnections),
+                settings.getInt("GZIP_REQUEST_MIN_BYTES", defaults.gzipRequestMinBytes));
+    }
+
+    /**
+     * Reads a timeout in milliseconds, treating zero or negative values like a missing key.
+     */
+    private static Duration timeout(ConfigLoader.Settings settings, String key, Duration defaultValue) {
+        Duration timeout = settings.getDuration(key, TimeUnit.MILLISECONDS, defaultValue);
+        if (!isPositive(timeout)) {
+            System.err.println("Ignoring non-positive " + key + " '" + settings.getProperty(key) + "', using "
+                    + defaultValue.toMillis() + " ms.");
+            return defaultValue;
+        }
+        return timeout;
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+
+    /**
+     * Sets the JDK connection pool properties from these settings, leaving values given on the command line untouched.
+     */
+    public void applyConnectionPoolProperties() {
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null && maxPooledConnections > 0) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(maxPooledConnections));
+        }
+    }
+
+    /**
+     * Creates the executor for the HttpClient: a fixed pool of daemon threads if a size is configured,
+     * otherwise a thread per task (virtual threads where available).
+     *
+     * @return A new executor.
+     */
+    public Executor createExecutor() {
+        if (executorThreads <= 0) {
+            return VirtualThreads.newExecutor();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(executorThreads, task -> {
+            Thread thread = new Thread(task, "api-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true); // Never keep the application alive
+            return thread;
+        });
+    }
+
+    /**
+     * Builds an HttpClient with these settings.
+     *
+     * @param executor The executor for the client's asynchronous tasks.
+     * @return A new HttpClient.
+     */
+    public HttpClient buildHttpClient(Executor executor) {
+        return HttpClient.newBuilder()
+                .version(httpVersion)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    // --- Getters ---
+    public HttpClient.Version getHttpVersion() {
+        return httpVersion;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public int getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public int getMaxPooledConnections() {
+        return maxPooledConnections;
+    }
+
+    public int getGzipRequestMinBytes() {
+        return gzipRequestMinBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Transport: " + httpVersion + ", connect timeout " + connectTimeout.toMillis() + " ms, request timeout "
+                + requestTimeout.toMillis() + " ms, " + (executorThreads > 0 ? executorThreads + " executor threads" : "thread per task")
+                + ", keep-alive " + keepAliveSeconds + " s";
+    }
+}